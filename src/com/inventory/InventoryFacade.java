@@ -3,31 +3,224 @@ package com.inventory;
 import com.inventory.model.Product;
 import com.inventory.report.InventoryReport;
 import com.inventory.report.Report;
+import com.inventory.report.ReportCache;
+import com.inventory.report.ReportEngine;
+import com.inventory.report.ReportScheduler;
+import com.inventory.report.SpooledReport;
 import com.inventory.report.SalesReport;
 import com.inventory.model.OrderData;
+import com.inventory.repository.CachingProductRepository;
+import com.inventory.repository.ProductCache;
 import com.inventory.repository.ProductRepository;
+import com.inventory.repository.RetryPolicy;
+import com.inventory.repository.SalesRollupRepository;
+import com.inventory.repository.SchemaMigrations;
+import com.inventory.repository.OptimisticConcurrency;
 import com.inventory.repository.OrderRepository;
-import com.inventory.service.NotificationService;
+import com.inventory.repository.OutboxRepository;
+import com.inventory.repository.StockLedgerRepository;
+import com.inventory.service.EventBus;
+import com.inventory.service.OrderIntakePipeline;
 import com.inventory.service.OrderProcessor;
+import com.inventory.service.OutboxConsumer;
+import com.inventory.service.OutboxRelay;
+import com.inventory.service.SalesRollupConsumer;
+import com.inventory.service.StockLedger;
+import com.inventory.service.Observer;
+import com.inventory.service.event.EventListener;
+import com.inventory.service.event.InventoryEvent;
 import com.inventory.report.ReportFactory;
+import com.inventory.config.Configuration;
 import com.inventory.controller.*;
+import com.inventory.db.ConnectionManager;
+import com.inventory.db.ConnectionProvider;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.util.List;
 
 public class InventoryFacade {
     private final ProductController productController;
     private final OrderController orderController;
     private final ReportController reportController;
-    private final NotificationService notificationService;
+    private final EventBus eventBus;
+    // Null when the outbox is disabled or its tables could not be created
+    private final OutboxRelay outboxRelay;
+    private final Configuration config;
 
     public InventoryFacade() {
-        ProductRepository productRepo = new ProductRepository();
-        OrderRepository orderRepo = new OrderRepository();
-        this.notificationService = new NotificationService();
+        this(ConnectionManager.getInstance(), ConnectionManager.getInstance().getConfiguration());
+    }
+
+    public InventoryFacade(ConnectionProvider connections, Configuration config) {
+        this.config = config;
+        migrateSchema(connections, config);
+        OutboxRepository outbox = createOutbox(connections, config);
+        this.outboxRelay = outbox == null ? null : new OutboxRelay(outbox, config);
+        OptimisticConcurrency concurrency = createConcurrency(connections, config);
+        ProductRepository productRepo = createProductRepository(connections, outbox, concurrency, config);
+        SalesRollupRepository rollups = createSalesRollups(connections, outboxRelay != null, config);
+        OrderRepository orderRepo = new OrderRepository(connections, outbox, concurrency, rollups);
+        this.eventBus = new EventBus(config);
         
-        // Initialize controllers with repositories
-        this.productController = new ProductController(productRepo);
-        this.orderController = new OrderController(productRepo, orderRepo);
-        this.reportController = new ReportController(productRepo);
+        // Initialize controllers with repositories and a shared background executor
+        AsyncExecutor async = new AsyncExecutor(config);
+        StockLedger ledger = createStockLedger(connections, productRepo, eventBus, concurrency != null, config);
+        this.productController = new ProductController(productRepo, async, AsyncExecutor.forViewReads(config), eventBus,
+            ledger);
+        OrderProcessor orderProcessor = new OrderProcessor(productRepo, orderRepo, ledger,
+            createOrderIntake(orderRepo, config));
+        this.orderController = new OrderController(productRepo, orderProcessor, async, eventBus);
+        ReportFactory reportFactory = new ReportFactory(orderRepo, new ReportEngine(config));
+        Path spoolDirectory = createSpoolDirectory(config);
+        this.reportController = new ReportController(productRepo, reportFactory, async, spoolDirectory,
+            createReportCache(eventBus, config),
+            createReportScheduler(productRepo, reportFactory, spoolDirectory, eventBus, config));
+        if (rollups != null && rollups.isMonthlyFromOutbox()) {
+            registerOutboxConsumer(SalesRollupConsumer.NAME, new SalesRollupConsumer(rollups));
+        }
+        if (outboxRelay != null) {
+            // Runs without consumers too, to purge events past the retention window
+            outboxRelay.start();
+        }
+    }
+
+    // Brings tables created by an earlier version up to date before anything reads them. Orders
+    // and sales reports cannot work without the migrated schema, so a failure stops startup.
+    private static void migrateSchema(ConnectionProvider connections, Configuration config) {
+        SchemaMigrations migrations = new SchemaMigrations(connections);
+        try {
+            if (config.getBoolean("schema.migrateOnStart", true)) {
+                migrations.migrate();
+            }
+            migrations.requireApplied();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema migration failed, run Main --migrate: " + e.getMessage(), e);
+        }
+    }
+
+    private static OutboxRepository createOutbox(ConnectionProvider connections, Configuration config) {
+        if (!config.getBoolean("outbox.enabled", true)) {
+            return null;
+        }
+        OutboxRepository outbox = new OutboxRepository(connections);
+        try {
+            outbox.createTables();
+            return outbox;
+        } catch (SQLException e) {
+            System.err.println("Outbox disabled, could not create its tables: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // With the outbox, the month rows are added up by a relay consumer instead of by every order
+    private static SalesRollupRepository createSalesRollups(ConnectionProvider connections, boolean outboxEnabled,
+                                                            Configuration config) {
+        if (!config.getBoolean("reports.rollups.enabled", true)) {
+            return null;
+        }
+        SalesRollupRepository rollups = new SalesRollupRepository(connections, outboxEnabled);
+        try {
+            rollups.ensureBuilt();
+            return rollups;
+        } catch (SQLException e) {
+            System.err.println("Sales rollups disabled, reports will scan the order history: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Clears out spool files of earlier runs that did not shut down cleanly, then gives this
+    // process its own subdirectory, deleted again on exit
+    private static Path createSpoolDirectory(Configuration config) {
+        Path root = Paths.get(config.getString("reports.spoolDir",
+            ReportController.defaultSpoolDirectory().toString()));
+        SpooledReport.sweep(root);
+        Path directory = SpooledReport.processDirectory(root);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> SpooledReport.deleteAll(directory),
+            "report-spool-cleanup"));
+        return directory;
+    }
+
+    // Any product, stock or order change can alter a report, so every event clears the cache.
+    // The TTL catches changes that never pass through this process's event bus; expired
+    // reports are evicted in the background so their spool files do not pile up.
+    private static ReportCache<SpooledReport> createReportCache(EventBus eventBus, Configuration config) {
+        if (!config.getBoolean("reports.cache.enabled", true)) {
+            return null;
+        }
+        ReportCache<SpooledReport> cache = new ReportCache<>(config.getLong("reports.cache.ttlMillis", 60_000),
+            SpooledReport::release);
+        eventBus.subscribe(InventoryEvent.class, event -> cache.invalidate());
+        cache.startEviction();
+        return cache;
+    }
+
+    // The inventory report lists current stock, so its stored copy goes on any change. Sales
+    // copies cover a period and are shown with their generation time.
+    private static ReportScheduler createReportScheduler(ProductRepository productRepo, ReportFactory reportFactory,
+                                                         Path spoolDirectory, EventBus eventBus, Configuration config) {
+        List<ReportScheduler.ScheduledReport> reports = ReportScheduler.fromConfiguration(config);
+        if (reports.isEmpty()) {
+            return null;
+        }
+        ReportScheduler scheduler = new ReportScheduler(productRepo, reportFactory, spoolDirectory, reports,
+            config.getBoolean("reports.scheduled.runOnStart", true));
+        eventBus.subscribe(InventoryEvent.class, event -> scheduler.invalidate("inventory"));
+        scheduler.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(scheduler::stop, "report-scheduler-shutdown"));
+        return scheduler;
+    }
+
+    // Null means stock writes lock the product rows instead
+    private static OptimisticConcurrency createConcurrency(ConnectionProvider connections, Configuration config) {
+        if (!"optimistic".equalsIgnoreCase(config.getString("stock.concurrency", "optimistic"))) {
+            return null;
+        }
+        if (!OptimisticConcurrency.hasVersionColumn(connections)) {
+            System.err.println("products.version is missing (see Main --migrate), "
+                + "falling back to row locks for stock updates");
+            return null;
+        }
+        return new OptimisticConcurrency(RetryPolicy.fromConfiguration(config));
+    }
+
+    private static OrderIntakePipeline createOrderIntake(OrderRepository orderRepo, Configuration config) {
+        if (!config.getBoolean("orders.intake.enabled", true)) {
+            return null;
+        }
+        OrderIntakePipeline intake = new OrderIntakePipeline(orderRepo, config);
+        // Lets the orders already queued reach the database before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> intake.close(5_000), "order-intake-shutdown"));
+        return intake;
+    }
+
+    private static StockLedger createStockLedger(ConnectionProvider connections, ProductRepository productRepo,
+                                                 EventBus eventBus, boolean versioned, Configuration config) {
+        if (!config.getBoolean("ledger.enabled", false)) {
+            return null;
+        }
+        StockLedger ledger = new StockLedger(new StockLedgerRepository(connections, versioned), productRepo, eventBus,
+            config);
+        try {
+            ledger.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(ledger::stop, "stock-ledger-shutdown"));
+            return ledger;
+        } catch (SQLException | IOException e) {
+            System.err.println("Stock ledger disabled, could not start it: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ProductRepository createProductRepository(ConnectionProvider connections, OutboxRepository outbox,
+                                                             OptimisticConcurrency concurrency, Configuration config) {
+        if (!config.getBoolean("cache.products.enabled", true)) {
+            return new ProductRepository(connections, outbox, concurrency);
+        }
+        ProductCache cache = new ProductCache(
+            config.getInt("cache.products.maxSize", 100_000),
+            ProductCache.EvictionPolicy.fromString(config.getString("cache.products.eviction", "LRU")));
+        return new CachingProductRepository(connections, outbox, concurrency, cache);
     }
 
     // Getter methods for controllers
@@ -43,17 +236,21 @@ public class InventoryFacade {
         return reportController;
     }
 
+    public Configuration getConfiguration() {
+        return config;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
     // Product operations delegated to ProductController
     public List<Product> getAllProducts() {
         return productController.getAllProducts();
     }
 
     public boolean updateStock(int productId, int quantity) {
-        boolean success = productController.updateStock(productId, quantity);
-        if (success) {
-            notifyChange("Stock updated for product #" + productId);
-        }
-        return success;
+        return productController.updateStock(productId, quantity);
     }
 
     public Product getProductDetails(int productId) {
@@ -61,20 +258,12 @@ public class InventoryFacade {
     }
 
     public boolean addProduct(String description, double price, int stock) {
-        boolean success = productController.addProduct(description, price, stock);
-        if (success) {
-            notifyChange("New product added: " + description);
-        }
-        return success;
+        return productController.addProduct(description, price, stock);
     }
 
     // Order operations delegated to OrderController
     public boolean createOrder(OrderData orderData) {
-        boolean success = orderController.processOrder(orderData);
-        if (success) {
-            notifyChange("New order created");
-        }
-        return success;
+        return orderController.processOrder(orderData);
     }
 
     // Report operations delegated to ReportController
@@ -82,16 +271,37 @@ public class InventoryFacade {
         return reportController.generateReport(reportType);
     }
 
-    // Observer pattern operations
-    public void registerObserver(com.inventory.service.Observer observer) {
-        notificationService.addObserver(observer);
+    // Observer pattern operations; controllers publish an event after every successful write
+    public void registerObserver(Observer observer) {
+        eventBus.addObserver(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        eventBus.removeObserver(observer);
     }
 
-    public void removeObserver(com.inventory.service.Observer observer) {
-        notificationService.removeObserver(observer);
+    public <E extends InventoryEvent> void subscribe(Class<E> type, EventListener<? super E> listener) {
+        eventBus.subscribe(type, listener);
     }
 
-    private void notifyChange(String message) {
-        notificationService.notifyObservers(message);
+    public void unsubscribe(EventListener<?> listener) {
+        eventBus.unsubscribe(listener);
+    }
+
+    // Durable delivery for downstream systems: the consumer resumes from its saved offset,
+    // so it also receives changes made while it (or this process) was not running
+    public boolean registerOutboxConsumer(String name, OutboxConsumer consumer) {
+        if (outboxRelay == null) {
+            return false;
+        }
+        outboxRelay.register(name, consumer);
+        outboxRelay.start();
+        return true;
+    }
+
+    public void removeOutboxConsumer(String name) {
+        if (outboxRelay != null) {
+            outboxRelay.unregister(name);
+        }
     }
 }
\ No newline at end of file
@@ -1,12 +1,74 @@
 package com.inventory;
 
+import com.inventory.db.ConnectionManager;
+import com.inventory.repository.OutboxRepository;
+import com.inventory.repository.SalesRollupRepository;
+import com.inventory.repository.SchemaMigrations;
 import com.inventory.ui.LoginUI;
 
+import java.sql.SQLException;
+
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--rebuild-sales-rollups")) {
+            // Exit status only once the pool is closed; System.exit skips pending finally blocks
+            if (!rebuildSalesRollups()) {
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--migrate")) {
+            if (!migrate()) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        // Open the pool before the first screen so login does not pay for the handshake
+        ConnectionManager.getInstance().start();
+
         // Start with the login UI
         javax.swing.SwingUtilities.invokeLater(() -> {
             new LoginUI().display();
         });
     }
+
+    // Recomputes the sales rollup tables from the order history, e.g. after editing orders by hand
+    private static boolean rebuildSalesRollups() {
+        try {
+            ConnectionManager connections = ConnectionManager.getInstance();
+            new SchemaMigrations(connections).migrate();
+            boolean outboxEnabled = connections.getConfiguration().getBoolean("outbox.enabled", true);
+            if (outboxEnabled) {
+                // The rebuild records how far the outbox has got
+                new OutboxRepository(connections).createTables();
+            }
+            SalesRollupRepository rollups = new SalesRollupRepository(connections, outboxEnabled);
+            // A database without rollups is built by ensureBuilt itself
+            if (!rollups.ensureBuilt()) {
+                rollups.rebuild();
+            }
+            System.out.println("Sales rollups rebuilt");
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            ConnectionManager.getInstance().close();
+        }
+    }
+
+    // Applies pending schema migrations without starting the application
+    private static boolean migrate() {
+        try {
+            int applied = new SchemaMigrations(ConnectionManager.getInstance()).migrate();
+            System.out.println(applied == 0 ? "Schema is up to date" : "Applied " + applied + " schema migration(s)");
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            ConnectionManager.getInstance().close();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.inventory.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+// Immutable snapshot of application settings. A key such as "db.pool.maxSize" is
+// resolved from, in order of precedence:
+//   1. the system property  -Ddb.pool.maxSize=...
+//   2. the environment variable INVENTORY_DB_POOL_MAXSIZE
+//   3. the properties file (inventory.properties, or the path in -Dinventory.config / INVENTORY_CONFIG)
+// falling back to the caller's default. Call load() again to pick up changes.
+public class Configuration {
+    public static final String FILE_PROPERTY = "inventory.config";
+    public static final String FILE_ENV = "INVENTORY_CONFIG";
+    private static final String DEFAULT_FILE = "inventory.properties";
+    private static final String ENV_PREFIX = "INVENTORY_";
+
+    private final Path file;
+    private final long fileLastModified;
+    private final Properties fileProperties;
+    private final Map<String, String> environment;
+    private final Properties systemProperties;
+
+    private Configuration(Path file, long fileLastModified, Properties fileProperties,
+                          Map<String, String> environment, Properties systemProperties) {
+        this.file = file;
+        this.fileLastModified = fileLastModified;
+        this.fileProperties = fileProperties;
+        this.environment = environment;
+        this.systemProperties = systemProperties;
+    }
+
+    public static Configuration load() {
+        Path file = resolveFile();
+        Properties fileProperties = new Properties();
+        long lastModified = 0L;
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                fileProperties.load(in);
+                lastModified = Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException e) {
+                System.err.println("Could not read configuration file " + file + ": " + e.getMessage());
+            }
+        }
+        return new Configuration(file, lastModified, fileProperties, System.getenv(),
+            (Properties) System.getProperties().clone());
+    }
+
+    // Only file-backed settings, useful for tests and tools that want to ignore the environment
+    public static Configuration fromProperties(Properties properties) {
+        return new Configuration(Paths.get(DEFAULT_FILE), 0L, properties, Map.of(), new Properties());
+    }
+
+    public static Path resolveFile() {
+        String location = System.getProperty(FILE_PROPERTY);
+        if (location == null || location.isEmpty()) {
+            location = System.getenv(FILE_ENV);
+        }
+        return Paths.get(location == null || location.isEmpty() ? DEFAULT_FILE : location);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // True when the backing file has been created, edited or removed since this snapshot was taken
+    public boolean isFileChanged() {
+        try {
+            long current = Files.isRegularFile(file) ? Files.getLastModifiedTime(file).toMillis() : 0L;
+            return current != fileLastModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = systemProperties.getProperty(key);
+        if (value == null) {
+            value = environment.get(toEnvironmentName(key));
+        }
+        if (value == null) {
+            value = fileProperties.getProperty(key);
+        }
+        return value == null ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting " + key + " must be an integer but was: " + value, e);
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting " + key + " must be an integer but was: " + value, e);
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes") || value.equals("1")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no") || value.equals("0")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Setting " + key + " must be true or false but was: " + value);
+    }
+
+    static String toEnvironmentName(String key) {
+        return ENV_PREFIX + key.replace('.', '_').replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+}
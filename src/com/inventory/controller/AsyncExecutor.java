@@ -0,0 +1,182 @@
+package com.inventory.controller;
+
+import com.inventory.config.Configuration;
+
+import javax.swing.*;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Runs controller work (i.e. anything that touches the database) off the Swing EDT.
+// Results come back as CompletableFutures; chain UI updates with thenAcceptAsync(..., AsyncExecutor.EDT).
+public class AsyncExecutor {
+    // Executes callbacks on the event dispatch thread
+    public static final Executor EDT = task -> {
+        if (SwingUtilities.isEventDispatchThread()) {
+            task.run();
+        } else {
+            SwingUtilities.invokeLater(task);
+        }
+    };
+
+    // Progress of a long-running task; always invoked on the EDT
+    @FunctionalInterface
+    public interface ProgressListener {
+        ProgressListener NONE = (percent, stage) -> { };
+
+        void onProgress(int percent, String stage);
+    }
+
+    private final ExecutorService executor;
+
+    public AsyncExecutor(Configuration config) {
+        this(createExecutor(config));
+    }
+
+    public AsyncExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    // For reads the UI fires on every scroll or keystroke (table pages, row counts), kept apart
+    // from the main executor so they can never fill its queue and get orders rejected. When
+    // the queue is full the oldest waiting read is dropped in favour of the new one: by then
+    // the user has usually scrolled past it, and its future fails so the caller can ask again.
+    public static AsyncExecutor forViewReads(Configuration config) {
+        int threads = config.getInt("async.viewReads.threads", 2);
+        int queueCapacity = config.getInt("async.viewReads.queueCapacity", 32);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread thread = new Thread(r, "inventory-view-reader-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, (task, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Executor is shut down");
+                }
+                Runnable oldest = executor.getQueue().poll();
+                if (oldest instanceof Future) {
+                    ((Future<?>) oldest).cancel(false);
+                }
+                executor.execute(task);
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return new AsyncExecutor(pool);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(task, null);
+    }
+
+    // For results that hold resources: one finished after the future was cancelled never
+    // reaches the caller, so it is handed to onAbandoned to be closed instead
+    public <T> CompletableFuture<T> submit(Callable<T> task, Consumer<? super T> onAbandoned) {
+        TaskFuture<T> future = new TaskFuture<>();
+        FutureTask<Void> work = new FutureTask<Void>(() -> {
+            try {
+                T result = task.call();
+                if (!future.complete(result) && result != null && onAbandoned != null) {
+                    onAbandoned.accept(result);
+                }
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                // Cancelled before it ran, e.g. dropped from a full queue
+                if (isCancelled()) {
+                    future.completeExceptionally(new RejectedExecutionException("Dropped for newer background tasks"));
+                }
+            }
+        };
+        future.task = work;
+        try {
+            executor.execute(work);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new RejectedExecutionException("Too many background tasks queued, try again", e));
+        }
+        return future;
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // Wraps a listener so it can be called from a worker thread
+    public static ProgressListener onEdt(ProgressListener listener) {
+        return (percent, stage) -> EDT.execute(() -> listener.onProgress(percent, stage));
+    }
+
+    // Throws if the current task was cancelled, for cooperative cancellation between steps
+    public static void checkCancelled() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Task cancelled");
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ExecutorService createExecutor(Configuration config) {
+        if (config.getBoolean("async.virtualThreads", false)) {
+            ExecutorService virtual = tryVirtualThreadExecutor();
+            if (virtual != null) {
+                return virtual;
+            }
+            System.err.println("Virtual threads are not available on this JVM, using a thread pool");
+        }
+
+        int threads = config.getInt("async.threads", 4);
+        int queueCapacity = config.getInt("async.queueCapacity", 100);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread thread = new Thread(r, "inventory-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21; looked up reflectively
+    // so the code still compiles and runs on older JDKs
+    private static ExecutorService tryVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // CompletableFuture.cancel() does not interrupt the worker on its own
+    private static final class TaskFuture<T> extends CompletableFuture<T> {
+        private volatile Future<?> task;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Future<?> running = task;
+            if (cancelled && running != null) {
+                running.cancel(true);
+            }
+            return cancelled;
+        }
+    }
+}
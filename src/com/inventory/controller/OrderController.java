@@ -1,20 +1,28 @@
 package com.inventory.controller;
 import com.inventory.model.OrderData;
-import com.inventory.model.Product;
-import com.inventory.repository.OrderRepository;
+import com.inventory.model.OrderResult;
 import com.inventory.repository.ProductRepository;
+import com.inventory.service.EventBus;
+import com.inventory.service.OrderProcessor;
+import com.inventory.service.event.OrderCreated;
 import com.inventory.ui.OrderView;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 public class OrderController {
     private final ProductRepository productRepo;
-    private final OrderRepository orderRepo;
+    private final OrderProcessor orderProcessor;
+    private final AsyncExecutor async;
+    private final EventBus events;
     private OrderView view; // Optional for UI updates
 
-    public OrderController(ProductRepository productRepo, OrderRepository orderRepo) {
+    public OrderController(ProductRepository productRepo, OrderProcessor orderProcessor, AsyncExecutor async,
+                           EventBus events) {
         this.productRepo = productRepo;
-        this.orderRepo = orderRepo;
+        this.orderProcessor = orderProcessor;
+        this.async = async;
+        this.events = events;
     }
 
     public void setView(OrderView view) {
@@ -22,17 +30,53 @@ public class OrderController {
     }
 
     public boolean processOrder(OrderData orderData) {
+        return placeOrder(orderData).isSuccess();
+    }
+
+    public OrderResult placeOrder(OrderData orderData) {
         // Business logic for processing orders
-        return orderRepo.createOrder(orderData);  // Changed from saveOrder to createOrder
+        OrderResult result = orderProcessor.placeOrder(orderData);
+        if (result.isSuccess()) {
+            if (orderProcessor.getLedger() == null) {
+                // Stock was decremented directly in the database. With the ledger the table is
+                // only written by its next flush, which invalidates and announces the change.
+                productRepo.invalidate(orderData.getItems().keySet());
+            }
+            events.publish(new OrderCreated(result.getOrderId(), orderData.getItems()));
+        }
+        return result;
+    }
+
+    public CompletableFuture<OrderResult> placeOrderAsync(OrderData orderData) {
+        return async.submit(() -> placeOrder(orderData));
     }
 
     public void refreshProductList() {
         if (view != null) {
-            view.updateProductDropdown(productRepo.findAll());
+            async.submit(productRepo::findAll).whenCompleteAsync((products, error) -> {
+                if (error == null) {
+                    view.updateProductDropdown(products);
+                } else {
+                    view.log("Could not load products" + ProductController.describe(error));
+                }
+            }, AsyncExecutor.EDT);
         }
     }
 
-    // UI-specific operations
+    // Re-reads only the changed products and adds/removes them from the dropdown
+    public void refreshProductList(Collection<Integer> changedIds) {
+        if (view != null) {
+            async.submit(() -> productRepo.findByIds(changedIds)).whenCompleteAsync((products, error) -> {
+                if (error == null) {
+                    view.updateProductDropdownEntries(products.values());
+                } else {
+                    view.log("Could not load products" + ProductController.describe(error));
+                }
+            }, AsyncExecutor.EDT);
+        }
+    }
+
+    // UI-specific operations: database work runs in the background, view updates on the EDT
     public void addToOrder(String productSelection, int quantity) {
         if (view != null) {
             if (productSelection == null || productSelection.isEmpty()) {
@@ -40,10 +84,19 @@ public class OrderController {
                 return;
             }
 
+            int productId;
             try {
-                int productId = Integer.parseInt(productSelection.split(" - ")[0]);
-                Product product = productRepo.findById(productId);  // Changed from getProductDetails to findById
+                productId = Integer.parseInt(productSelection.split(" - ")[0]);
+            } catch (NumberFormatException ex) {
+                view.showErrorMessage("Error adding product to order: " + ex.getMessage(), "Error");
+                return;
+            }
 
+            async.submit(() -> productRepo.findById(productId)).whenCompleteAsync((product, error) -> {
+                if (error != null) {
+                    view.showErrorMessage("Error adding product to order" + ProductController.describe(error), "Error");
+                    return;
+                }
                 if (product == null) {
                     view.showErrorMessage("Product not found", "Error");
                     return;
@@ -55,13 +108,9 @@ public class OrderController {
                     return;
                 }
 
-                OrderData currentOrder = new OrderData();
-                currentOrder.addItem(productId, quantity);
                 view.addOrderItem(product, quantity);
                 view.log("Added " + quantity + " x " + product.getDescription() + " to order.");
-            } catch (Exception ex) {
-                view.showErrorMessage("Error adding product to order: " + ex.getMessage(), "Error");
-            }
+            }, AsyncExecutor.EDT);
         }
     }
     
@@ -70,13 +119,17 @@ public class OrderController {
         if (view != null) {
             OrderData orderData = view.getCurrentOrder();
             if (orderData != null && !orderData.getItems().isEmpty()) {
-                boolean success = processOrder(orderData);
-                if (success) {
-                    view.clearOrder();
-                    view.log("Order completed successfully");
-                } else {
-                    view.showErrorMessage("Failed to complete order", "Order Error");
-                }
+                placeOrderAsync(orderData).whenCompleteAsync((result, error) -> {
+                    if (error != null) {
+                        view.showErrorMessage("Failed to complete order" + ProductController.describe(error),
+                            "Order Error");
+                    } else if (result.isSuccess()) {
+                        view.clearOrder();
+                        view.log("Order #" + result.getOrderId() + " completed successfully");
+                    } else {
+                        view.showErrorMessage("Failed to complete order. " + result.describe(orderData), "Order Error");
+                    }
+                }, AsyncExecutor.EDT);
             } else {
                 view.showErrorMessage("Cannot complete an empty order", "Empty Order");
             }
@@ -1,18 +1,42 @@
 package com.inventory.controller;
 
 import com.inventory.model.Product;
+import com.inventory.repository.ProductQuery;
 import com.inventory.repository.ProductRepository;
+import com.inventory.service.EventBus;
+import com.inventory.service.StockLedger;
+import com.inventory.service.event.ProductAdded;
+import com.inventory.service.event.StockChanged;
 import com.inventory.ui.ProductView;
 
-import javax.swing.*;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class ProductController {
     private final ProductRepository productRepo;
+    private final AsyncExecutor async;
+    // Page and count reads for the product table; see AsyncExecutor.forViewReads
+    private final AsyncExecutor viewReads;
+    private final EventBus events;
+    // Null unless the in-memory stock ledger is enabled; stock changes then go through it
+    private final StockLedger ledger;
     private ProductView view;
 
-    public ProductController(ProductRepository productRepo) {
+    public ProductController(ProductRepository productRepo, AsyncExecutor async, EventBus events) {
+        this(productRepo, async, async, events, null);
+    }
+
+    public ProductController(ProductRepository productRepo, AsyncExecutor async, AsyncExecutor viewReads,
+                             EventBus events, StockLedger ledger) {
         this.productRepo = productRepo;
+        this.async = async;
+        this.viewReads = viewReads;
+        this.events = events;
+        this.ledger = ledger;
     }
 
     public void setView(ProductView view) {
@@ -23,21 +47,111 @@ public class ProductController {
         return productRepo.findAll();
     }
 
+    public int countProducts(ProductQuery query) {
+        return productRepo.count(query);
+    }
+
+    public List<Product> getProductPage(ProductQuery query, Product after, int offset, int limit) {
+        return productRepo.findPage(query, after, offset, limit);
+    }
+
     public Product getProduct(int productId) {
         return productRepo.findById(productId);
     }
 
     public boolean addProduct(String description, double price, int stock) {
-        return productRepo.addProduct(description, price, stock);
+        int productId = productRepo.insertProduct(description, price, stock);
+        if (productId < 0) {
+            return false;
+        }
+        events.publish(new ProductAdded(new Product(productId, description, price, stock)));
+        return true;
     }
 
     public boolean updateStock(int productId, int quantity) {
-        return productRepo.updateStock(productId, quantity);
+        int newLevel;
+        try {
+            newLevel = ledger != null ? ledger.adjust(productId, quantity) : productRepo.adjustStock(productId, quantity);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (newLevel < 0) {
+            return false;
+        }
+        events.publish(new StockChanged(productId, quantity, newLevel));
+        return true;
+    }
+
+    // Asynchronous variants for callers on the EDT
+    public CompletableFuture<List<Product>> getAllProductsAsync() {
+        return async.submit(this::getAllProducts);
+    }
+
+    public CompletableFuture<Map<Integer, Product>> getProductsAsync(Collection<Integer> productIds) {
+        return async.submit(() -> productRepo.findByIds(productIds));
+    }
+
+    public CompletableFuture<Integer> countProductsAsync(ProductQuery query) {
+        return viewReads.submit(() -> countProducts(query));
+    }
+
+    public CompletableFuture<List<Product>> getProductPageAsync(ProductQuery query, Product after, int offset, int limit) {
+        return viewReads.submit(() -> getProductPage(query, after, offset, limit));
+    }
+
+    public CompletableFuture<Boolean> addProductAsync(String description, double price, int stock) {
+        return async.submit(() -> addProduct(description, price, stock));
+    }
+
+    public CompletableFuture<Boolean> updateStockAsync(int productId, int quantity) {
+        return async.submit(() -> updateStock(productId, quantity));
+    }
+
+    // UI-specific operations: run in the background, report back on the EDT
+    public void addProductFromForm(String description, double price, int stock) {
+        addProductAsync(description, price, stock).whenCompleteAsync((success, error) -> {
+            if (view == null) {
+                return;
+            }
+            if (error == null && success) {
+                view.clearProductForm();
+            } else {
+                view.showErrorMessage("Failed to add product" + describe(error), "Product Error");
+            }
+        }, AsyncExecutor.EDT);
+    }
+
+    public void updateStockFromForm(int productId, int quantity) {
+        updateStockAsync(productId, quantity).whenCompleteAsync((success, error) -> {
+            if (view == null) {
+                return;
+            }
+            if (error == null && success) {
+                view.clearStockUpdateForm();
+            } else {
+                view.showErrorMessage("Failed to update stock for product #" + productId + describe(error),
+                    "Stock Error");
+            }
+        }, AsyncExecutor.EDT);
+    }
+
+    // Explicit refresh: drop anything cached and re-read from the database
+    public void reloadProducts() {
+        async.run(productRepo::invalidateAll).thenRunAsync(this::refreshProducts, AsyncExecutor.EDT);
     }
 
     public void refreshProducts() {
         if (view != null) {
-            view.displayProducts(getAllProducts());
+            view.refreshProductTable();
+        }
+    }
+
+    static String describe(Throwable error) {
+        if (error == null) {
+            return "";
         }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return ": " + cause.getMessage();
     }
 }
\ No newline at end of file
@@ -1,21 +1,71 @@
 package com.inventory.controller;
 
 import com.inventory.model.Product;
+import com.inventory.report.ExportFormat;
+import com.inventory.report.ReportCache;
 import com.inventory.report.ReportFactory;
 import com.inventory.report.Report;
+import com.inventory.report.ReportPages;
+import com.inventory.report.ReportScheduler;
+import com.inventory.report.SpooledReport;
+import com.inventory.repository.OrderRepository;
 import com.inventory.repository.ProductRepository;
+import com.inventory.repository.SalesQuery;
 import com.inventory.ui.ReportView;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+// Reports are streamed into spool files rather than built as Strings. Callers then read the
+// whole file, page through it, or copy it to an export file. A report the scheduler has
+// precomputed is served from its stored copy until that is replaced.
 public class ReportController {
+    private static final AsyncExecutor.ProgressListener NO_PROGRESS = (percent, stage) -> { };
+    private static final DateTimeFormatter GENERATED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+        .withZone(ZoneId.systemDefault());
+
     private final ProductRepository productRepo;
     private final ReportFactory reportFactory;
+    private final AsyncExecutor async;
+    private final Path spoolDirectory;
+    // Null when every request regenerates the report
+    private final ReportCache<SpooledReport> cache;
+    // Null when no reports are scheduled
+    private final ReportScheduler scheduler;
     private ReportView view;  // Added missing field
 
-    public ReportController(ProductRepository productRepo) {
+    @FunctionalInterface
+    private interface SpoolReader<T> {
+        T read(SpooledReport spooled) throws IOException;
+    }
+
+    public ReportController(ProductRepository productRepo, OrderRepository orderRepo, AsyncExecutor async) {
+        this(productRepo, new ReportFactory(orderRepo), async,
+            SpooledReport.processDirectory(defaultSpoolDirectory()), null);
+    }
+
+    public ReportController(ProductRepository productRepo, ReportFactory reportFactory, AsyncExecutor async,
+                            Path spoolDirectory, ReportCache<SpooledReport> cache) {
+        this(productRepo, reportFactory, async, spoolDirectory, cache, null);
+    }
+
+    public ReportController(ProductRepository productRepo, ReportFactory reportFactory, AsyncExecutor async,
+                            Path spoolDirectory, ReportCache<SpooledReport> cache, ReportScheduler scheduler) {
         this.productRepo = productRepo;
-        this.reportFactory = new ReportFactory();
+        this.reportFactory = reportFactory;
+        this.async = async;
+        this.spoolDirectory = spoolDirectory;
+        this.cache = cache;
+        this.scheduler = scheduler;
+    }
+
+    public static Path defaultSpoolDirectory() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "inventory-reports");
     }
 
     public void setView(ReportView view) {
@@ -23,8 +73,200 @@ public class ReportController {
     }
 
     public String generateReport(String reportType) {
+        return generateReport(reportType, null);
+    }
+
+    // The whole report as one String; prefer openReportAsync for large reports
+    public String generateReport(String reportType, SalesQuery salesQuery) {
+        Report report = reportFactory.createReport(reportType, salesQuery);
+        if (report == null) {
+            return "Unknown report type: " + reportType;
+        }
+        try {
+            return withReport(reportType, salesQuery, report, NO_PROGRESS, "Done", SpooledReport::readAll);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Report generation was interrupted";
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not generate " + reportType + " report", e);
+        }
+    }
+
+    // Generates a report in the background. Cancelling the returned future interrupts the
+    // worker, which stops at the next step boundary. Progress is delivered on the EDT.
+    public CompletableFuture<String> generateReportAsync(String reportType, AsyncExecutor.ProgressListener listener) {
+        return generateReportAsync(reportType, null, listener);
+    }
+
+    public CompletableFuture<String> generateReportAsync(String reportType, SalesQuery salesQuery,
+                                                         AsyncExecutor.ProgressListener listener) {
+        AsyncExecutor.ProgressListener progress = AsyncExecutor.onEdt(listener);
+        return async.submit(() -> {
+            Report report = reportFactory.createReport(reportType, salesQuery);
+            if (report == null) {
+                return "Unknown report type: " + reportType;
+            }
+            return withReport(reportType, salesQuery, report, progress, "Done", SpooledReport::readAll);
+        });
+    }
+
+    // Like generateReportAsync, but the result is a paged view over the spool file, so the
+    // report is never held in memory as a whole. Close the pages when done with them.
+    public CompletableFuture<ReportPages> openReportAsync(String reportType, SalesQuery salesQuery, int linesPerPage,
+                                                          AsyncExecutor.ProgressListener listener) {
+        AsyncExecutor.ProgressListener progress = AsyncExecutor.onEdt(listener);
+        return async.submit(() -> openPages(reportType, salesQuery, linesPerPage, progress),
+            ReportController::closeQuietly);
+    }
+
+    // Builds the report again whatever is cached or precomputed, then opens it like
+    // openReportAsync. A scheduled report's stored copy is replaced by the new one.
+    public CompletableFuture<ReportPages> regenerateReportAsync(String reportType, SalesQuery salesQuery,
+                                                                int linesPerPage,
+                                                                AsyncExecutor.ProgressListener listener) {
+        AsyncExecutor.ProgressListener progress = AsyncExecutor.onEdt(listener);
+        return async.submit(() -> {
+            requireReport(reportType, salesQuery);
+            progress.onProgress(0, "Regenerating " + reportType + " report");
+            if (scheduler == null || !scheduler.regenerate(reportType, salesQuery)) {
+                if (cache != null) {
+                    // Coarse, but a manual regeneration is rare and the other reports are cheap
+                    // to build again
+                    cache.invalidate();
+                }
+            }
+            AsyncExecutor.checkCancelled();
+            return openPages(reportType, salesQuery, linesPerPage, progress);
+        }, ReportController::closeQuietly);
+    }
+
+    // Writes the report to target by copying its spool file channel to channel. Returns the
+    // number of bytes written.
+    public CompletableFuture<Long> exportReportAsync(String reportType, SalesQuery salesQuery, Path target,
+                                                     AsyncExecutor.ProgressListener listener) {
+        AsyncExecutor.ProgressListener progress = AsyncExecutor.onEdt(listener);
+        return async.submit(() -> {
+            Report report = requireReport(reportType, salesQuery);
+            return withReport(reportType, salesQuery, report, progress, "Saved", spooled -> spooled.copyTo(target));
+        });
+    }
+
+    // Exports the report's rows as data rather than text. Always reads current data; the
+    // cache only holds text reports.
+    public CompletableFuture<Long> exportDataAsync(String reportType, SalesQuery salesQuery, ExportFormat format,
+                                                   Path target, AsyncExecutor.ProgressListener listener) {
+        AsyncExecutor.ProgressListener progress = AsyncExecutor.onEdt(listener);
+        return async.submit(() -> {
+            progress.onProgress(0, "Loading products");
+            List<Product> products = productRepo.findAll();
+            AsyncExecutor.checkCancelled();
+
+            progress.onProgress(40, "Writing " + reportType + " " + format.getExtension() + " export");
+            long written = reportFactory.createExporter().export(reportType, salesQuery, products, format, target);
+            progress.onProgress(100, "Saved");
+            return written;
+        });
+    }
+
+    public ReportCache<SpooledReport> getCache() {
+        return cache;
+    }
+
+    public ReportScheduler getScheduler() {
+        return scheduler;
+    }
+
+    private ReportPages openPages(String reportType, SalesQuery salesQuery, int linesPerPage,
+                                  AsyncExecutor.ProgressListener progress) throws Exception {
+        Report report = requireReport(reportType, salesQuery);
+        ReportPages pages = withReport(reportType, salesQuery, report, progress, "Done",
+            spooled -> spooled.openPages(linesPerPage));
+        if (Thread.currentThread().isInterrupted()) {
+            // Nobody will receive the pages, so they must not keep the spool file alive. A
+            // cancel arriving after this check is handled by the submit callback.
+            pages.close();
+            throw new InterruptedException("Task cancelled");
+        }
+        return pages;
+    }
+
+    // For pages whose future was cancelled after they were opened
+    private static void closeQuietly(ReportPages pages) {
+        try {
+            pages.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Report requireReport(String reportType, SalesQuery salesQuery) {
+        Report report = reportFactory.createReport(reportType, salesQuery);
+        if (report == null) {
+            throw new IllegalArgumentException("Unknown report type: " + reportType);
+        }
+        return report;
+    }
+
+    // Gets the spooled report from the scheduler or the cache, or generates it, and reads it
+    // while holding a reference so nobody can delete the file underneath the reader. Reports
+    // doneStage at 100%; for a precomputed copy it says when that copy was generated, since
+    // it may be hours old.
+    private <T> T withReport(String reportType, SalesQuery salesQuery, Report report,
+                             AsyncExecutor.ProgressListener progress, String doneStage, SpoolReader<T> reader)
+            throws Exception {
+        ReportScheduler.Precomputed precomputed = scheduler != null
+            ? scheduler.retainLatest(reportType, salesQuery) : null;
+        if (precomputed != null) {
+            try {
+                String generated = "copy generated " + GENERATED_AT.format(precomputed.getGeneratedAt());
+                progress.onProgress(40, "Using " + generated);
+                T result = reader.read(precomputed.getReport());
+                progress.onProgress(100, doneStage + " (" + generated + ")");
+                return result;
+            } finally {
+                precomputed.release();
+            }
+        }
+        while (true) {
+            SpooledReport spooled = cache != null
+                ? cache.get(reportType, salesQuery, () -> spool(reportType, report, progress))
+                : spool(reportType, report, progress);
+            if (cache == null) {
+                try {
+                    T result = reader.read(spooled);
+                    progress.onProgress(100, doneStage);
+                    return result;
+                } finally {
+                    spooled.release();
+                }
+            }
+            if (spooled.retain()) {
+                try {
+                    T result = reader.read(spooled);
+                    progress.onProgress(100, doneStage);
+                    return result;
+                } finally {
+                    spooled.release();
+                }
+            }
+            // Invalidated and deleted between the cache handing it out and us retaining it
+        }
+    }
+
+    private SpooledReport spool(String reportType, Report report, AsyncExecutor.ProgressListener progress)
+            throws IOException, InterruptedException {
+        progress.onProgress(0, "Loading products");
         List<Product> products = productRepo.findAll();
-        Report report = reportFactory.createReport(reportType);
-        return report != null ? report.generate(products) : "Unknown report type: " + reportType;
+        AsyncExecutor.checkCancelled();
+
+        progress.onProgress(40, "Building " + reportType + " report");
+        SpooledReport spooled = SpooledReport.write(report, products, spoolDirectory);
+        if (Thread.currentThread().isInterrupted()) {
+            spooled.release();
+            throw new InterruptedException("Task cancelled");
+        }
+        return spooled;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,144 @@
+package com.inventory.db;
+
+import com.inventory.config.Configuration;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Owns the application's connection pool: builds it from configuration, warms it on
+// start(), swaps it on configuration changes and closes it when the JVM exits.
+public class ConnectionManager implements ConnectionProvider, AutoCloseable {
+    private static final String MYSQL_DRIVER = "com.mysql.cj.jdbc.Driver";
+
+    private volatile Configuration configuration;
+    private volatile DatabaseSettings settings;
+    private volatile ConnectionPool pool;
+    private ScheduledExecutorService configWatcher;
+    private Thread shutdownHook;
+    private boolean started;
+
+    // Lazy, thread-safe initialization of the shared instance
+    private static class Holder {
+        private static final ConnectionManager INSTANCE = new ConnectionManager(Configuration.load());
+    }
+
+    public static ConnectionManager getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // Separate managers can point at an embedded or stand-in database through db.url
+    public ConnectionManager(Configuration configuration) {
+        this.configuration = configuration;
+        this.settings = new DatabaseSettings(configuration);
+        this.pool = createPool(settings);
+    }
+
+    // Opens the minimum number of connections up front, starts watching the configuration
+    // file and registers a shutdown hook. Safe to call more than once.
+    public synchronized ConnectionManager start() {
+        if (started) {
+            return this;
+        }
+        started = true;
+
+        int warmed = pool.warmUp();
+        System.out.println("Connection pool ready with " + warmed + " warm connection(s)");
+
+        int watchInterval = configuration.getInt("config.watchIntervalSeconds", 10);
+        if (watchInterval > 0) {
+            configWatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "db-config-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            configWatcher.scheduleWithFixedDelay(() -> {
+                if (configuration.isFileChanged()) {
+                    reload();
+                }
+            }, watchInterval, watchInterval, TimeUnit.SECONDS);
+        }
+
+        shutdownHook = new Thread(this::close, "db-pool-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        return this;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ConnectionPool current = pool;
+        try {
+            return current.getConnection();
+        } catch (SQLException e) {
+            // The pool may have been swapped out underneath us by a reload
+            if (current.isClosed() && pool != current) {
+                return pool.getConnection();
+            }
+            throw e;
+        }
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        return pool.getMetrics();
+    }
+
+    public DatabaseSettings getSettings() {
+        return settings;
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    // Re-reads the configuration and, if the database settings changed, swaps in a new pool.
+    // Connections already borrowed from the old pool keep working and are closed when returned.
+    public synchronized boolean reload() {
+        Configuration reloaded = Configuration.load();
+        DatabaseSettings newSettings;
+        try {
+            newSettings = new DatabaseSettings(reloaded);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid database configuration: " + e.getMessage());
+            return false;
+        }
+        configuration = reloaded;
+        if (newSettings.equals(settings)) {
+            return false;
+        }
+
+        ConnectionPool old = pool;
+        pool = createPool(newSettings);
+        settings = newSettings;
+        old.close();
+        System.out.println("Database configuration reloaded: " + newSettings);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (configWatcher != null) {
+            configWatcher.shutdownNow();
+        }
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down
+            }
+        }
+        pool.close();
+    }
+
+    private static ConnectionPool createPool(DatabaseSettings settings) {
+        if (settings.getUrl().startsWith("jdbc:mysql:")) {
+            try {
+                // Explicitly register the MySQL driver once rather than on every borrow
+                Class.forName(MYSQL_DRIVER);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("MySQL JDBC Driver not found", e);
+            }
+        }
+        return new ConnectionPool(settings.getUrl(), settings.toConnectionProperties(), settings.getPoolConfig());
+    }
+}
@@ -0,0 +1,352 @@
+package com.inventory.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Bounded JDBC connection pool. Borrowed connections are proxies whose close()
+// returns the physical connection to the pool instead of tearing it down.
+public class ConnectionPool implements AutoCloseable {
+    private final String url;
+    private final Properties connectionProperties;
+    private final PoolConfig config;
+    private final Semaphore permits;
+    // Idle connections are reused LIFO so the hottest ones stay warm and eviction drains the tail
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> active = ConcurrentHashMap.newKeySet();
+    private final PoolMetrics metrics;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, Properties connectionProperties, PoolConfig config) {
+        config.validate();
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        this.metrics = new PoolMetrics(this);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = config.getHousekeepingIntervalMillis();
+        if (interval > 0) {
+            housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        // Top up to the minimum size in the background so construction never blocks on the network
+        housekeeper.execute(this::fillToMinimum);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        long waited = 0;
+        if (!permits.tryAcquire()) {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            waited = System.nanoTime() - start;
+            if (!acquired) {
+                metrics.recordTimeout();
+                throw new SQLTimeoutException("Timed out after " + config.getAcquireTimeoutMillis()
+                    + "ms waiting for a database connection (" + metrics + ")");
+            }
+        }
+
+        try {
+            PooledEntry entry = takeIdle();
+            if (entry == null) {
+                entry = createEntry();
+            }
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.leakReported = false;
+            entry.borrowSite = config.getLeakDetectionThresholdMillis() > 0
+                ? new Throwable("Connection borrowed by " + Thread.currentThread().getName())
+                : null;
+            active.add(entry);
+            metrics.recordBorrow(System.nanoTime() - start, waited);
+            return entry.newProxy();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Synchronously opens connections up to the configured minimum; returns the number of idle connections
+    public int warmUp() {
+        fillToMinimum();
+        return idle.size();
+    }
+
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getAwaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+        // Borrowed connections are destroyed as their holders return them
+    }
+
+    private PooledEntry takeIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (!config.isValidateOnBorrow() || isValid(entry)) {
+                return entry;
+            }
+            metrics.recordValidationFailure();
+            destroy(entry);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledEntry createEntry() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, connectionProperties);
+        metrics.recordCreated();
+        return new PooledEntry(physical);
+    }
+
+    private void destroy(PooledEntry entry) {
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // Already broken; nothing more to release
+        }
+        metrics.recordDestroyed();
+    }
+
+    private void release(PooledEntry entry) {
+        active.remove(entry);
+        try {
+            entry.closeOpenStatements();
+            if (!entry.broken && !entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            entry.broken = true;
+        }
+
+        if (closed || entry.broken) {
+            destroy(entry);
+        } else {
+            entry.lastReturnedAt = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            fillToMinimum();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void evictIdle() {
+        long idleTimeout = config.getIdleTimeoutMillis();
+        if (idleTimeout <= 0) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - idleTimeout;
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() + active.size() > config.getMinSize()) {
+            PooledEntry entry = it.next();
+            if (entry.lastReturnedAt < cutoff && idle.removeLastOccurrence(entry)) {
+                destroy(entry);
+            }
+        }
+    }
+
+    private synchronized void fillToMinimum() {
+        while (!closed && idle.size() + active.size() < config.getMinSize()) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                PooledEntry entry = createEntry();
+                entry.lastReturnedAt = System.currentTimeMillis();
+                idle.offerLast(entry);
+            } catch (SQLException e) {
+                System.err.println("Connection pool could not open a connection: " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        long threshold = config.getLeakDetectionThresholdMillis();
+        if (threshold <= 0) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - threshold;
+        for (PooledEntry entry : active) {
+            if (!entry.leakReported && entry.borrowedAt < cutoff) {
+                entry.leakReported = true;
+                metrics.recordLeak();
+                System.err.println("Possible connection leak: connection held for more than " + threshold + "ms");
+                if (entry.borrowSite != null) {
+                    entry.borrowSite.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private final class PooledEntry {
+        private final Connection physical;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private volatile long borrowedAt;
+        private volatile long lastReturnedAt;
+        private volatile boolean leakReported;
+        private volatile Throwable borrowSite;
+        private volatile boolean broken;
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection newProxy() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new BorrowHandler(this));
+        }
+
+        private void track(Statement statement) {
+            synchronized (openStatements) {
+                openStatements.add(statement);
+            }
+        }
+
+        // Callers are not always diligent about closing statements; with pooling they would
+        // otherwise pile up on the physical connection across borrows
+        private void closeOpenStatements() {
+            synchronized (openStatements) {
+                for (Statement statement : openStatements) {
+                    try {
+                        statement.close();
+                    } catch (SQLException e) {
+                        // Ignore, the statement is gone either way
+                    }
+                }
+                openStatements.clear();
+            }
+        }
+    }
+
+    private final class BorrowHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean closed;
+
+        private BorrowHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + (closed ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                Object result = method.invoke(entry.physical, args);
+                if (result instanceof Statement) {
+                    entry.track((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    // SQLState class 08 means the connection itself is unusable
+                    if (state != null && state.startsWith("08")) {
+                        entry.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.inventory.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Source of JDBC connections for the repositories. Production code uses the shared
+// ConnectionManager; tests and benchmarks can pass any other implementation.
+@FunctionalInterface
+public interface ConnectionProvider {
+    Connection getConnection() throws SQLException;
+}
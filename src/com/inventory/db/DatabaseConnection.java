@@ -1,21 +0,0 @@
-package com.inventory.db;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-
-public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/inventory_management";
-    private static final String USER = "root";
-    private static final String PASSWORD = "123456789"; // Replace with your MySQL password
-
-    public static Connection getConnection() throws SQLException {
-        try {
-            // Explicitly register the MySQL driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USER, PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver not found", e);
-        }
-    }
-}
\ No newline at end of file
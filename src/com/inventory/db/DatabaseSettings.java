@@ -0,0 +1,119 @@
+package com.inventory.db;
+
+import com.inventory.config.Configuration;
+import java.util.Objects;
+import java.util.Properties;
+
+// Typed view over the db.* settings, including the Connector/J properties that matter for throughput
+public class DatabaseSettings {
+    private final String url;
+    private final String user;
+    private final String password;
+
+    // Driver tuning
+    private final boolean useServerPrepStmts;
+    private final boolean cachePrepStmts;
+    private final int prepStmtCacheSize;
+    private final int prepStmtCacheSqlLimit;
+    private final boolean rewriteBatchedStatements;
+    private final boolean useCompression;
+    private final int tcpRcvBuf;
+    private final int tcpSndBuf;
+    private final int connectTimeoutMillis;
+    private final int socketTimeoutMillis;
+
+    private final PoolConfig poolConfig;
+
+    public DatabaseSettings(Configuration config) {
+        this.url = config.getString("db.url", "jdbc:mysql://localhost:3306/inventory_management");
+        this.user = config.getString("db.user", "root");
+        this.password = config.getString("db.password", "123456789");
+
+        this.useServerPrepStmts = config.getBoolean("db.driver.useServerPrepStmts", true);
+        this.cachePrepStmts = config.getBoolean("db.driver.cachePrepStmts", true);
+        this.prepStmtCacheSize = config.getInt("db.driver.prepStmtCacheSize", 250);
+        this.prepStmtCacheSqlLimit = config.getInt("db.driver.prepStmtCacheSqlLimit", 2048);
+        this.rewriteBatchedStatements = config.getBoolean("db.driver.rewriteBatchedStatements", true);
+        this.useCompression = config.getBoolean("db.driver.useCompression", false);
+        // 0 leaves the socket buffer sizes to the operating system
+        this.tcpRcvBuf = config.getInt("db.driver.tcpRcvBuf", 0);
+        this.tcpSndBuf = config.getInt("db.driver.tcpSndBuf", 0);
+        this.connectTimeoutMillis = config.getInt("db.driver.connectTimeout", 10_000);
+        this.socketTimeoutMillis = config.getInt("db.driver.socketTimeout", 0);
+
+        this.poolConfig = new PoolConfig()
+            .setMinSize(config.getInt("db.pool.minSize", 2))
+            .setMaxSize(config.getInt("db.pool.maxSize", 10))
+            .setAcquireTimeoutMillis(config.getLong("db.pool.acquireTimeoutMillis", 5_000))
+            .setIdleTimeoutMillis(config.getLong("db.pool.idleTimeoutMillis", 300_000))
+            .setHousekeepingIntervalMillis(config.getLong("db.pool.housekeepingIntervalMillis", 30_000))
+            .setLeakDetectionThresholdMillis(config.getLong("db.pool.leakDetectionThresholdMillis", 60_000))
+            .setValidateOnBorrow(config.getBoolean("db.pool.validateOnBorrow", true))
+            .setValidationTimeoutSeconds(config.getInt("db.pool.validationTimeoutSeconds", 2));
+        poolConfig.validate();
+    }
+
+    public String getUrl() { return url; }
+    public String getUser() { return user; }
+    public boolean isUseServerPrepStmts() { return useServerPrepStmts; }
+    public boolean isCachePrepStmts() { return cachePrepStmts; }
+    public int getPrepStmtCacheSize() { return prepStmtCacheSize; }
+    public int getPrepStmtCacheSqlLimit() { return prepStmtCacheSqlLimit; }
+    public boolean isRewriteBatchedStatements() { return rewriteBatchedStatements; }
+    public boolean isUseCompression() { return useCompression; }
+    public int getTcpRcvBuf() { return tcpRcvBuf; }
+    public int getTcpSndBuf() { return tcpSndBuf; }
+    public int getConnectTimeoutMillis() { return connectTimeoutMillis; }
+    public int getSocketTimeoutMillis() { return socketTimeoutMillis; }
+    public PoolConfig getPoolConfig() { return poolConfig; }
+
+    public Properties toConnectionProperties() {
+        Properties props = new Properties();
+        props.setProperty("user", user);
+        props.setProperty("password", password);
+        props.setProperty("useServerPrepStmts", String.valueOf(useServerPrepStmts));
+        props.setProperty("cachePrepStmts", String.valueOf(cachePrepStmts));
+        props.setProperty("prepStmtCacheSize", String.valueOf(prepStmtCacheSize));
+        props.setProperty("prepStmtCacheSqlLimit", String.valueOf(prepStmtCacheSqlLimit));
+        props.setProperty("rewriteBatchedStatements", String.valueOf(rewriteBatchedStatements));
+        props.setProperty("useCompression", String.valueOf(useCompression));
+        if (tcpRcvBuf > 0) {
+            props.setProperty("tcpRcvBuf", String.valueOf(tcpRcvBuf));
+        }
+        if (tcpSndBuf > 0) {
+            props.setProperty("tcpSndBuf", String.valueOf(tcpSndBuf));
+        }
+        props.setProperty("connectTimeout", String.valueOf(connectTimeoutMillis));
+        props.setProperty("socketTimeout", String.valueOf(socketTimeoutMillis));
+        return props;
+    }
+
+    // Two settings objects are equal when a pool built from either would behave identically
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DatabaseSettings)) return false;
+        DatabaseSettings other = (DatabaseSettings) o;
+        return url.equals(other.url)
+            && toConnectionProperties().equals(other.toConnectionProperties())
+            && poolConfig.getMinSize() == other.poolConfig.getMinSize()
+            && poolConfig.getMaxSize() == other.poolConfig.getMaxSize()
+            && poolConfig.getAcquireTimeoutMillis() == other.poolConfig.getAcquireTimeoutMillis()
+            && poolConfig.getIdleTimeoutMillis() == other.poolConfig.getIdleTimeoutMillis()
+            && poolConfig.getHousekeepingIntervalMillis() == other.poolConfig.getHousekeepingIntervalMillis()
+            && poolConfig.getLeakDetectionThresholdMillis() == other.poolConfig.getLeakDetectionThresholdMillis()
+            && poolConfig.isValidateOnBorrow() == other.poolConfig.isValidateOnBorrow()
+            && poolConfig.getValidationTimeoutSeconds() == other.poolConfig.getValidationTimeoutSeconds();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(url, user, poolConfig.getMinSize(), poolConfig.getMaxSize());
+    }
+
+    @Override
+    public String toString() {
+        // Never print the password
+        return "DatabaseSettings[url=" + url + ", user=" + user + ", " + poolConfig + "]";
+    }
+}
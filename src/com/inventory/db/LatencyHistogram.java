@@ -0,0 +1,74 @@
+package com.inventory.db;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-bucket latency histogram; recording is lock-free so it can sit on the borrow path
+public class LatencyHistogram {
+    // Upper bounds of each bucket in microseconds; the last bucket is open-ended
+    private static final long[] BOUNDS_MICROS = {
+        50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+        100_000, 250_000, 500_000, 1_000_000, 5_000_000
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long micros = nanos / 1_000;
+        int i = 0;
+        while (i < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[i]) {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : totalNanos.sum() / (double) n / 1_000_000.0;
+    }
+
+    // Upper bound (in ms) of the bucket containing the given percentile, e.g. 0.99
+    public double getPercentileMillis(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0.0;
+        }
+        long target = (long) Math.ceil(percentile * n);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return i < BOUNDS_MICROS.length
+                    ? BOUNDS_MICROS[i] / 1_000.0
+                    : Double.POSITIVE_INFINITY;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    public static long[] getBucketBoundsMicros() {
+        return BOUNDS_MICROS.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.3fms, p50<=%.3fms, p99<=%.3fms",
+            getCount(), getMeanMillis(), getPercentileMillis(0.50), getPercentileMillis(0.99));
+    }
+}
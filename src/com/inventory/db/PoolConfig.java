@@ -0,0 +1,81 @@
+package com.inventory.db;
+
+// Tunables for ConnectionPool. All durations are in milliseconds; a value of 0
+// disables the corresponding feature (acquire timeout excepted).
+public class PoolConfig {
+    private int minSize = 2;
+    private int maxSize = 10;
+    private long acquireTimeoutMillis = 5_000;
+    private long idleTimeoutMillis = 300_000;
+    private long housekeepingIntervalMillis = 30_000;
+    private long leakDetectionThresholdMillis = 60_000;
+    private boolean validateOnBorrow = true;
+    private int validationTimeoutSeconds = 2;
+
+    public int getMinSize() { return minSize; }
+    public int getMaxSize() { return maxSize; }
+    public long getAcquireTimeoutMillis() { return acquireTimeoutMillis; }
+    public long getIdleTimeoutMillis() { return idleTimeoutMillis; }
+    public long getHousekeepingIntervalMillis() { return housekeepingIntervalMillis; }
+    public long getLeakDetectionThresholdMillis() { return leakDetectionThresholdMillis; }
+    public boolean isValidateOnBorrow() { return validateOnBorrow; }
+    public int getValidationTimeoutSeconds() { return validationTimeoutSeconds; }
+
+    public PoolConfig setMinSize(int minSize) {
+        this.minSize = minSize;
+        return this;
+    }
+
+    public PoolConfig setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public PoolConfig setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        return this;
+    }
+
+    public PoolConfig setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    public PoolConfig setHousekeepingIntervalMillis(long housekeepingIntervalMillis) {
+        this.housekeepingIntervalMillis = housekeepingIntervalMillis;
+        return this;
+    }
+
+    public PoolConfig setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        return this;
+    }
+
+    public PoolConfig setValidateOnBorrow(boolean validateOnBorrow) {
+        this.validateOnBorrow = validateOnBorrow;
+        return this;
+    }
+
+    public PoolConfig setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        return this;
+    }
+
+    void validate() {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool max size must be at least 1");
+        }
+        if (minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Pool min size must be between 0 and " + maxSize);
+        }
+        if (acquireTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Acquire timeout must not be negative");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolConfig[min=%d, max=%d, acquireTimeout=%dms, idleTimeout=%dms, leakThreshold=%dms]",
+            minSize, maxSize, acquireTimeoutMillis, idleTimeoutMillis, leakDetectionThresholdMillis);
+    }
+}
@@ -0,0 +1,55 @@
+package com.inventory.db;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Live counters for a ConnectionPool; gauges (active/idle) are read from the pool on demand
+public class PoolMetrics {
+    private final ConnectionPool pool;
+    private final LatencyHistogram borrowLatency = new LatencyHistogram();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+
+    PoolMetrics(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    void recordBorrow(long latencyNanos, long waitedNanos) {
+        borrowLatency.record(latencyNanos);
+        if (waitedNanos > 0) {
+            waits.increment();
+            waitNanos.add(waitedNanos);
+        }
+    }
+
+    void recordTimeout() { timeouts.increment(); }
+    void recordCreated() { created.increment(); }
+    void recordDestroyed() { destroyed.increment(); }
+    void recordValidationFailure() { validationFailures.increment(); }
+    void recordLeak() { leaksDetected.increment(); }
+
+    public int getActive() { return pool.getActiveCount(); }
+    public int getIdle() { return pool.getIdleCount(); }
+    public int getThreadsAwaiting() { return pool.getAwaitingCount(); }
+    public LatencyHistogram getBorrowLatency() { return borrowLatency; }
+    public long getWaitCount() { return waits.sum(); }
+    public long getTotalWaitMillis() { return waitNanos.sum() / 1_000_000; }
+    public long getTimeoutCount() { return timeouts.sum(); }
+    public long getCreatedCount() { return created.sum(); }
+    public long getDestroyedCount() { return destroyed.sum(); }
+    public long getValidationFailureCount() { return validationFailures.sum(); }
+    public long getLeakCount() { return leaksDetected.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[active=%d, idle=%d, awaiting=%d, waits=%d (%dms total), timeouts=%d, "
+                + "created=%d, destroyed=%d, validationFailures=%d, leaks=%d, borrow: %s]",
+            getActive(), getIdle(), getThreadsAwaiting(), getWaitCount(), getTotalWaitMillis(),
+            getTimeoutCount(), getCreatedCount(), getDestroyedCount(), getValidationFailureCount(),
+            getLeakCount(), borrowLatency);
+    }
+}
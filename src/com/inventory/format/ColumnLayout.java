@@ -0,0 +1,405 @@
+package com.inventory.format;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Locale;
+
+// A printf-style line layout such as "%-5d %-30s $%-9.2f\n", parsed once and then filled in
+// field by field. Lines are built in a reusable char buffer and numbers are written digit by
+// digit, so a row costs no format parsing, no boxing and no temporary Strings. The output is
+// the same as String.format in the default format locale. Supports %d, %s and %f with the
+// '-', ',' and '0' flags, width and precision, plus %% and %n - what fixed-width report
+// columns need. Layouts are immutable and shared; each thread fills its own Line.
+public final class ColumnLayout {
+    private static final int DEFAULT_PRECISION = 6;
+
+    private final String pattern;
+    // literals[i] comes before field i; the last one follows the last field
+    private final String[] literals;
+    private final char[] conversions;
+    private final boolean[] leftJustify;
+    private final boolean[] grouping;
+    private final boolean[] zeroPad;
+    // -1 when not given
+    private final int[] widths;
+    private final int[] precisions;
+    // Each field on its own, for locales whose grouping this class cannot reproduce
+    private final String[] specs;
+
+    private ColumnLayout(String pattern, String[] literals, char[] conversions, boolean[] leftJustify,
+                         boolean[] grouping, boolean[] zeroPad, int[] widths, int[] precisions, String[] specs) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.conversions = conversions;
+        this.leftJustify = leftJustify;
+        this.grouping = grouping;
+        this.zeroPad = zeroPad;
+        this.widths = widths;
+        this.precisions = precisions;
+        this.specs = specs;
+    }
+
+    public static ColumnLayout compile(String pattern) {
+        int maxFields = pattern.length() / 2;
+        String[] literals = new String[maxFields + 1];
+        char[] conversions = new char[maxFields];
+        boolean[] leftJustify = new boolean[maxFields];
+        boolean[] grouping = new boolean[maxFields];
+        boolean[] zeroPad = new boolean[maxFields];
+        int[] widths = new int[maxFields];
+        int[] precisions = new int[maxFields];
+        String[] specs = new String[maxFields];
+
+        int fields = 0;
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i++);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            int start = i - 1;
+            boolean left = false, group = false, zero = false;
+            for (; i < pattern.length() && "-,0".indexOf(pattern.charAt(i)) >= 0; i++) {
+                switch (pattern.charAt(i)) {
+                    case '-': left = true; break;
+                    case ',': group = true; break;
+                    default: zero = true;
+                }
+            }
+            int width = -1;
+            for (; i < pattern.length() && Character.isDigit(pattern.charAt(i)); i++) {
+                width = Math.max(width, 0) * 10 + (pattern.charAt(i) - '0');
+            }
+            int precision = -1;
+            if (i < pattern.length() && pattern.charAt(i) == '.') {
+                precision = 0;
+                for (i++; i < pattern.length() && Character.isDigit(pattern.charAt(i)); i++) {
+                    precision = precision * 10 + (pattern.charAt(i) - '0');
+                }
+            }
+            if (i == pattern.length()) {
+                throw new IllegalArgumentException("Incomplete field at the end of \"" + pattern + "\"");
+            }
+            char conversion = pattern.charAt(i++);
+            boolean plain = !left && !group && !zero && width == -1 && precision == -1;
+            if ((conversion == '%' || conversion == 'n') && plain) {
+                literal.append(conversion == '%' ? "%" : System.lineSeparator());
+                continue;
+            }
+            if ("dsf".indexOf(conversion) < 0 || (left && width == -1) || (zero && (left || width == -1))
+                    || (conversion == 'd' && precision != -1) || (conversion == 's' && (group || zero))) {
+                throw new IllegalArgumentException("Unsupported field " + pattern.substring(start, i)
+                    + " in \"" + pattern + "\"");
+            }
+            literals[fields] = literal.toString();
+            literal.setLength(0);
+            conversions[fields] = conversion;
+            leftJustify[fields] = left;
+            grouping[fields] = group;
+            zeroPad[fields] = zero;
+            widths[fields] = width;
+            precisions[fields] = conversion == 'f' && precision == -1 ? DEFAULT_PRECISION : precision;
+            specs[fields] = pattern.substring(start, i);
+            fields++;
+        }
+        literals[fields] = literal.toString();
+        return new ColumnLayout(pattern, Arrays.copyOf(literals, fields + 1),
+            Arrays.copyOf(conversions, fields), Arrays.copyOf(leftJustify, fields),
+            Arrays.copyOf(grouping, fields), Arrays.copyOf(zeroPad, fields),
+            Arrays.copyOf(widths, fields), Arrays.copyOf(precisions, fields),
+            Arrays.copyOf(specs, fields));
+    }
+
+    public int getFieldCount() { return conversions.length; }
+
+    // A line to fill, reused from one row to the next. Not thread-safe.
+    public Line newLine() {
+        return new Line(Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnLayout[" + pattern + "]";
+    }
+
+    public final class Line {
+        private final Locale locale;
+        private final char zero;
+        private final char decimalSeparator;
+        // Resolved on first use; '\0' separator when the locale does not group
+        private char groupingSeparator;
+        private int groupingSize = -1;
+        private boolean formatterGrouping;
+
+        private char[] buffer = new char[128];
+        private int length;
+        private int field;
+        // ASCII digits of the number being written: integer part, then fraction
+        private final char[] digits = new char[32];
+
+        private Line(Locale locale) {
+            this.locale = locale;
+            if (locale.equals(Locale.US)) {
+                // The shortcut Formatter itself takes
+                zero = '0';
+                decimalSeparator = '.';
+            } else {
+                DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+                zero = symbols.getZeroDigit();
+                decimalSeparator = symbols.getDecimalSeparator();
+            }
+        }
+
+        public Line add(long value) {
+            int f = next('d');
+            if (grouping[f] && usesFormatterGrouping()) {
+                return addFormatted(f, value);
+            }
+            int count = 0;
+            long rest = value;
+            do {
+                digits[count++] = (char) ('0' + Math.abs(rest % 10));
+                rest /= 10;
+            } while (rest != 0);
+            reverse(count);
+            putNumber(f, value < 0, count, 0);
+            return this;
+        }
+
+        public Line add(double value) {
+            int f = next('f');
+            int start = length;
+            if (Double.isNaN(value)) {
+                put("NaN");
+                justify(f, start);
+                return this;
+            }
+            boolean negative = Decimals.isNegative(value);
+            if (Double.isInfinite(value)) {
+                put(negative ? "-Infinity" : "Infinity");
+                justify(f, start);
+                return this;
+            }
+            if (grouping[f] && usesFormatterGrouping()) {
+                return addFormatted(f, value);
+            }
+            int precision = precisions[f];
+            long scaled = Decimals.scaledMagnitude(value, precision);
+            if (scaled < 0) {
+                // Too large for a long: go through the same decimal digits Formatter uses
+                String plain = new BigDecimal(Double.toString(Math.abs(value)))
+                    .setScale(precision, RoundingMode.HALF_UP).toPlainString();
+                int point = plain.indexOf('.');
+                char[] all = (point < 0 ? plain : plain.substring(0, point) + plain.substring(point + 1)).toCharArray();
+                putNumber(f, negative, all, point < 0 ? all.length : point, precision);
+                return this;
+            }
+            long unit = Decimals.pow10(precision);
+            int count = 0;
+            long whole = scaled / unit;
+            do {
+                digits[count++] = (char) ('0' + whole % 10);
+                whole /= 10;
+            } while (whole != 0);
+            reverse(count);
+            long fraction = scaled % unit;
+            for (int i = precision - 1; i >= 0; i--) {
+                digits[count + i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            putNumber(f, negative, count, precision);
+            return this;
+        }
+
+        public Line add(String value) {
+            int f = next('s');
+            int start = length;
+            String text = value == null ? "null" : value;
+            int end = precisions[f] != -1 ? Math.min(precisions[f], text.length()) : text.length();
+            ensure(end);
+            text.getChars(0, end, buffer, length);
+            length += end;
+            justify(f, start);
+            return this;
+        }
+
+        public void appendTo(StringBuilder out) {
+            finish();
+            out.append(buffer, 0, length);
+            reset();
+        }
+
+        public void appendTo(Appendable out) throws IOException {
+            if (out instanceof StringBuilder) {
+                appendTo((StringBuilder) out);
+                return;
+            }
+            finish();
+            out.append(CharBuffer.wrap(buffer, 0, length));
+            reset();
+        }
+
+        public String format() {
+            finish();
+            String line = new String(buffer, 0, length);
+            reset();
+            return line;
+        }
+
+        private int next(char conversion) {
+            if (field == conversions.length) {
+                throw new IllegalStateException("All " + field + " fields of \"" + pattern + "\" are already set");
+            }
+            if (conversions[field] != conversion) {
+                throw new IllegalArgumentException("Field " + specs[field] + " of \"" + pattern
+                    + "\" does not take a " + (conversion == 'd' ? "long" : conversion == 'f' ? "double" : "String"));
+            }
+            put(literals[field]);
+            return field++;
+        }
+
+        private void finish() {
+            if (field != conversions.length) {
+                throw new IllegalStateException("Only " + field + " of " + conversions.length
+                    + " fields of \"" + pattern + "\" are set");
+            }
+            put(literals[field]);
+        }
+
+        private void reset() {
+            length = 0;
+            field = 0;
+        }
+
+        // The digits are ASCII, integer part then fraction
+        private void putNumber(int f, boolean negative, int integerDigits, int fractionDigits) {
+            putNumber(f, negative, digits, integerDigits, fractionDigits);
+        }
+
+        private void putNumber(int f, boolean negative, char[] source, int integerDigits, int fractionDigits) {
+            int start = length;
+            if (negative) {
+                put('-');
+            }
+            int magnitudeStart = length;
+            char separator = grouping[f] ? groupingSeparator() : '\0';
+            ensure(integerDigits * 2 + fractionDigits + 1);
+            for (int i = 0; i < integerDigits; i++) {
+                buffer[length++] = (char) (source[i] - '0' + zero);
+                int remaining = integerDigits - i - 1;
+                if (separator != '\0' && remaining > 0 && remaining % groupingSize == 0) {
+                    buffer[length++] = separator;
+                }
+            }
+            if (fractionDigits > 0) {
+                buffer[length++] = decimalSeparator;
+                for (int i = integerDigits; i < integerDigits + fractionDigits; i++) {
+                    buffer[length++] = (char) (source[i] - '0' + zero);
+                }
+            }
+            if (zeroPad[f] && widths[f] > length - start) {
+                // Zeros go between the sign and the digits and are never grouped
+                int pad = widths[f] - (length - start);
+                shift(magnitudeStart, pad);
+                for (int i = 0; i < pad; i++) {
+                    buffer[magnitudeStart + i] = zero;
+                }
+            }
+            justify(f, start);
+        }
+
+        private void justify(int f, int start) {
+            int pad = widths[f] - (length - start);
+            if (pad <= 0) {
+                return;
+            }
+            if (leftJustify[f]) {
+                ensure(pad);
+                for (int i = 0; i < pad; i++) {
+                    buffer[length++] = ' ';
+                }
+            } else {
+                shift(start, pad);
+                for (int i = 0; i < pad; i++) {
+                    buffer[start + i] = ' ';
+                }
+            }
+        }
+
+        // Opens a gap of count chars at position
+        private void shift(int position, int count) {
+            ensure(count);
+            System.arraycopy(buffer, position, buffer, position + count, length - position);
+            length += count;
+        }
+
+        private void reverse(int count) {
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                char c = digits[i];
+                digits[i] = digits[j];
+                digits[j] = c;
+            }
+        }
+
+        private void put(char c) {
+            ensure(1);
+            buffer[length++] = c;
+        }
+
+        private void put(String text) {
+            ensure(text.length());
+            text.getChars(0, text.length(), buffer, length);
+            length += text.length();
+        }
+
+        private void ensure(int more) {
+            if (length + more > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + more));
+            }
+        }
+
+        private char groupingSeparator() {
+            usesFormatterGrouping();
+            return groupingSeparator;
+        }
+
+        // Mirrors how Formatter finds the grouping separator and size. True when the locale's
+        // number format is not a DecimalFormat, in which case grouped fields are handed to
+        // String.format rather than guessed at.
+        private boolean usesFormatterGrouping() {
+            if (groupingSize == -1) {
+                if (locale.equals(Locale.US)) {
+                    groupingSeparator = ',';
+                    groupingSize = 3;
+                } else {
+                    groupingSeparator = DecimalFormatSymbols.getInstance(locale).getGroupingSeparator();
+                    NumberFormat format = NumberFormat.getNumberInstance(locale);
+                    if (format instanceof DecimalFormat) {
+                        DecimalFormat decimalFormat = (DecimalFormat) format;
+                        groupingSize = decimalFormat.getGroupingSize();
+                        if (!decimalFormat.isGroupingUsed() || groupingSize == 0) {
+                            groupingSeparator = '\0';
+                        }
+                    } else {
+                        groupingSize = 0;
+                        formatterGrouping = true;
+                    }
+                }
+            }
+            return formatterGrouping;
+        }
+
+        private Line addFormatted(int f, Object value) {
+            put(String.format(locale, specs[f], value));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.inventory.format;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point rounding that matches java.util.Formatter's %.Nf without allocating. Formatter
+// rounds the shortest decimal form of the double (the digits of Double.toString) half-up, not
+// the exact binary value, so 1.005 becomes 1.01. Below FAST_LIMIT the shortest form is the
+// only decimal with that many digits close enough to parse back to the double, which lets the
+// midpoints be compared as doubles. Larger values go through BigDecimal.
+public final class Decimals {
+    private static final double FAST_LIMIT = 1e9;
+    private static final int MAX_FAST_DECIMALS = 4;
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private Decimals() {
+    }
+
+    // Formatter prints a minus sign for every negative value, including -0.0 and values that
+    // round to zero
+    public static boolean isNegative(double value) {
+        return Double.compare(value, 0.0) < 0;
+    }
+
+    // |value| * 10^decimals rounded the way %.Nf rounds it, or -1 when that does not fit in a
+    // long (or value is NaN or infinite)
+    public static long scaledMagnitude(double value, int decimals) {
+        double abs = Math.abs(value);
+        if (abs < FAST_LIMIT && decimals <= MAX_FAST_DECIMALS) {
+            double twoScale = 2.0 * POW10[decimals];
+            long scaled = (long) (abs * POW10[decimals]);
+            // Settle on the scaled value whose rounding interval holds abs: the midpoints on
+            // either side are (2f - 1) / 2s and (2f + 1) / 2s, and a midpoint that parses to
+            // abs exactly is the shortest form itself, which rounds up
+            while (scaled > 0 && abs < (2 * scaled - 1) / twoScale) {
+                scaled--;
+            }
+            while (abs >= (2 * scaled + 1) / twoScale) {
+                scaled++;
+            }
+            return scaled;
+        }
+        if (Double.isNaN(abs) || Double.isInfinite(abs) || decimals >= POW10.length) {
+            return -1;
+        }
+        BigDecimal rounded = new BigDecimal(Double.toString(abs)).setScale(decimals, RoundingMode.HALF_UP);
+        return rounded.unscaledValue().bitLength() > 63 ? -1 : rounded.unscaledValue().longValue();
+    }
+
+    public static long pow10(int decimals) {
+        return POW10[decimals];
+    }
+
+    // Number of decimal digits in a non-negative long
+    public static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,53 @@
+package com.inventory.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class OrderResult {
+    private final boolean success;
+    private final int orderId;
+    // Rejected lines: product id -> stock available when the order was checked (0 for unknown products)
+    private final Map<Integer, Integer> shortages;
+    private final String message;
+
+    private OrderResult(boolean success, int orderId, Map<Integer, Integer> shortages, String message) {
+        this.success = success;
+        this.orderId = orderId;
+        this.shortages = shortages;
+        this.message = message;
+    }
+
+    public static OrderResult success(int orderId) {
+        return new OrderResult(true, orderId, Collections.emptyMap(), "Order #" + orderId + " created");
+    }
+
+    public static OrderResult rejected(Map<Integer, Integer> shortages) {
+        return new OrderResult(false, -1, Collections.unmodifiableMap(new LinkedHashMap<>(shortages)),
+            "Insufficient stock");
+    }
+
+    public static OrderResult failed(String message) {
+        return new OrderResult(false, -1, Collections.emptyMap(), message);
+    }
+
+    public boolean isSuccess() { return success; }
+    public int getOrderId() { return orderId; }
+    public Map<Integer, Integer> getShortages() { return shortages; }
+    public String getMessage() { return message; }
+
+    // Human-readable explanation, including every rejected line
+    public String describe(OrderData orderData) {
+        if (success || shortages.isEmpty()) {
+            return message;
+        }
+        StringBuilder sb = new StringBuilder(message).append(':');
+        for (Map.Entry<Integer, Integer> entry : shortages.entrySet()) {
+            Integer requested = orderData.getItems().get(entry.getKey());
+            sb.append("\n  Product #").append(entry.getKey())
+              .append(": requested ").append(requested)
+              .append(", available ").append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
@@ -1,6 +1,10 @@
 package com.inventory.model;
 
+import com.inventory.format.ColumnLayout;
+
 public class Product {
+    private static final ColumnLayout TO_STRING = ColumnLayout.compile("Product #%d: %s (Price: $%.2f, Stock: %d)");
+
     private final int id;
     private final String description;
     private final double price;
@@ -21,7 +25,6 @@ public class Product {
 
     @Override
     public String toString() {
-        return String.format("Product #%d: %s (Price: $%.2f, Stock: %d)",
-            id, description, price, stock);
+        return TO_STRING.newLine().add(id).add(description).add(price).add(stock).format();
     }
 }
\ No newline at end of file
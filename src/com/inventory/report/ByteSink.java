@@ -0,0 +1,221 @@
+package com.inventory.report;
+
+import com.inventory.format.Decimals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Encodes text straight into a direct buffer that is drained to a FileChannel. Numbers are
+// written digit by digit and strings are UTF-8 encoded char by char, so writing a row does
+// not allocate: no String.format, no boxing and no intermediate byte arrays.
+final class ByteSink {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // Longest encoding of anything put in one step: a long, or a code point as a JSON escape
+    private static final int MAX_STEP = 24;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private long flushed;
+
+    ByteSink(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    long getBytesWritten() {
+        return flushed + buffer.position();
+    }
+
+    // For bytes encoded once up front, such as a header line or a JSON key
+    void put(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            flush();
+            if (bytes.length > buffer.capacity()) {
+                drain(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    void put(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    void putLong(long value) throws IOException {
+        ensure(MAX_STEP);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                putAscii(Long.toString(value));
+                return;
+            }
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        putDigits(value, 1);
+    }
+
+    // Formats value with the given number of decimals, rounded the way %.Nf rounds. Returns
+    // false and writes nothing for NaN and infinities, which have no plain decimal form.
+    boolean putFixed(double value, int decimals) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+        ensure(MAX_STEP + 2);
+        if (Decimals.isNegative(value)) {
+            buffer.put((byte) '-');
+        }
+        long scaled = Decimals.scaledMagnitude(value, decimals);
+        if (scaled < 0) {
+            putAscii(new BigDecimal(Double.toString(Math.abs(value)))
+                .setScale(decimals, RoundingMode.HALF_UP).toPlainString());
+            return true;
+        }
+        long unit = Decimals.pow10(decimals);
+        putDigits(scaled / unit, 1);
+        if (decimals > 0) {
+            buffer.put((byte) '.');
+            putDigits(scaled % unit, decimals);
+        }
+        return true;
+    }
+
+    // Strings known to be ASCII, such as numbers rendered by the JDK
+    void putAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            ensure(1);
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    // A CSV field per RFC 4180: quoted only when it holds a comma, quote or line break
+    void putCsvField(String text) throws IOException {
+        if (text == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            putUtf8(text);
+            return;
+        }
+        put((byte) '"');
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            ensure(MAX_STEP);
+            if (codePoint == '"') {
+                buffer.put((byte) '"');
+            }
+            putCodePoint(codePoint);
+        }
+        put((byte) '"');
+    }
+
+    // A JSON string literal, or null
+    void putJsonString(String text) throws IOException {
+        if (text == null) {
+            putAscii("null");
+            return;
+        }
+        put((byte) '"');
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            ensure(MAX_STEP);
+            switch (codePoint) {
+                case '"': buffer.put((byte) '\\').put((byte) '"'); break;
+                case '\\': buffer.put((byte) '\\').put((byte) '\\'); break;
+                case '\n': buffer.put((byte) '\\').put((byte) 'n'); break;
+                case '\r': buffer.put((byte) '\\').put((byte) 'r'); break;
+                case '\t': buffer.put((byte) '\\').put((byte) 't'); break;
+                default:
+                    if (codePoint < 0x20) {
+                        buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                              .put(hexDigit(codePoint >> 4)).put(hexDigit(codePoint));
+                    } else {
+                        putCodePoint(codePoint);
+                    }
+            }
+        }
+        put((byte) '"');
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        drain(buffer);
+        buffer.clear();
+    }
+
+    private void putUtf8(String text) throws IOException {
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            ensure(4);
+            putCodePoint(codePoint);
+        }
+    }
+
+    // Caller has ensured room for four bytes
+    private void putCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            buffer.put((byte) codePoint);
+        } else if (codePoint < 0x800) {
+            buffer.put((byte) (0xC0 | (codePoint >> 6)))
+                  .put((byte) (0x80 | (codePoint & 0x3F)));
+        } else if (codePoint < 0x10000) {
+            if (Character.isSurrogate((char) codePoint)) {
+                // An unpaired surrogate; encode it the way String.getBytes does
+                buffer.put((byte) '?');
+                return;
+            }
+            buffer.put((byte) (0xE0 | (codePoint >> 12)))
+                  .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                  .put((byte) (0x80 | (codePoint & 0x3F)));
+        } else {
+            buffer.put((byte) (0xF0 | (codePoint >> 18)))
+                  .put((byte) (0x80 | ((codePoint >> 12) & 0x3F)))
+                  .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                  .put((byte) (0x80 | (codePoint & 0x3F)));
+        }
+    }
+
+    // Writes a non-negative value zero-padded to at least minDigits; caller has ensured room
+    private void putDigits(long value, int minDigits) {
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        for (int i = count; i < minDigits; i++) {
+            buffer.put((byte) '0');
+        }
+        while (count > 0) {
+            buffer.put(digits[--count]);
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void drain(ByteBuffer source) throws IOException {
+        flushed += source.remaining();
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private static byte hexDigit(int value) {
+        return (byte) "0123456789abcdef".charAt(value & 0xF);
+    }
+}
@@ -0,0 +1,108 @@
+package com.inventory.report;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Writes rows column by column into a memory-mapped file. All values are big-endian:
+//
+//   "AIMSCOL1"                          magic, 8 ASCII bytes
+//   int rowCount, int columnCount
+//   per column: byte type, short nameLength, name (UTF-8)
+//   per column, in the same order, its data:
+//     INT     rowCount ints
+//     LONG    rowCount longs
+//     DOUBLE  rowCount doubles, unrounded
+//     STRING  rowCount + 1 int offsets into the bytes that follow, then the UTF-8 bytes;
+//             a null string is stored as an empty one
+//
+// The file size is known before anything is written, so it is mapped once and filled in place.
+final class ColumnarWriter {
+    private static final byte[] MAGIC = "AIMSCOL1".getBytes(StandardCharsets.US_ASCII);
+
+    private ColumnarWriter() {
+    }
+
+    static long write(List<ExportColumn> columns, int rows, Path target) throws IOException {
+        byte[][] names = new byte[columns.size()][];
+        byte[][][] strings = new byte[columns.size()][][];
+        long size = MAGIC.length + 8;
+        for (int c = 0; c < columns.size(); c++) {
+            ExportColumn column = columns.get(c);
+            names[c] = column.name.getBytes(StandardCharsets.UTF_8);
+            size += 3 + names[c].length;
+            switch (column.type) {
+                case ExportColumn.INT:
+                    size += 4L * rows;
+                    break;
+                case ExportColumn.LONG:
+                case ExportColumn.DOUBLE:
+                    size += 8L * rows;
+                    break;
+                default:
+                    // Strings are encoded up front to size the file; offsets are ints, so a
+                    // column holds at most 2 GB of text
+                    strings[c] = new byte[rows][];
+                    long bytes = 0;
+                    for (int row = 0; row < rows; row++) {
+                        String value = column.stringValue.apply(row);
+                        strings[c][row] = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+                        bytes += strings[c][row].length;
+                    }
+                    if (bytes > Integer.MAX_VALUE) {
+                        throw new IOException("Column " + column.name + " is too large for the columnar format");
+                    }
+                    size += 4L * (rows + 1) + bytes;
+            }
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Export of " + size + " bytes is too large to map");
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.put(MAGIC).putInt(rows).putInt(columns.size());
+            for (int c = 0; c < columns.size(); c++) {
+                out.put(columns.get(c).type).putShort((short) names[c].length).put(names[c]);
+            }
+            for (int c = 0; c < columns.size(); c++) {
+                ExportColumn column = columns.get(c);
+                switch (column.type) {
+                    case ExportColumn.INT:
+                        for (int row = 0; row < rows; row++) {
+                            out.putInt(column.intValue.applyAsInt(row));
+                        }
+                        break;
+                    case ExportColumn.LONG:
+                        for (int row = 0; row < rows; row++) {
+                            out.putLong(column.longValue.applyAsLong(row));
+                        }
+                        break;
+                    case ExportColumn.DOUBLE:
+                        for (int row = 0; row < rows; row++) {
+                            out.putDouble(column.doubleValue.applyAsDouble(row));
+                        }
+                        break;
+                    default:
+                        int offset = 0;
+                        for (int row = 0; row < rows; row++) {
+                            out.putInt(offset);
+                            offset += strings[c][row].length;
+                        }
+                        out.putInt(offset);
+                        for (int row = 0; row < rows; row++) {
+                            out.put(strings[c][row]);
+                        }
+                        strings[c] = null;
+                }
+            }
+            out.force();
+        }
+        return size;
+    }
+}
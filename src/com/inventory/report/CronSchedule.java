@@ -0,0 +1,130 @@
+package com.inventory.report;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+// A five-field cron expression: minute, hour, day of month, month and day of week. Each field
+// is *, a number, a range a-b, a step */n or a-b/n, or a comma-separated list of those. Day
+// of week runs 0-7, where both 0 and 7 are Sunday. As in cron, when both day fields are
+// restricted, a day matching either of them fires.
+public final class CronSchedule {
+    // Give up on expressions that never fire, such as "0 0 30 2 *"
+    private static final int MAX_YEARS_AHEAD = 8;
+
+    private final String expression;
+    // One bit per allowed value
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    private CronSchedule(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59);
+        this.hours = parseField(fields[1], 0, 23);
+        this.daysOfMonth = parseField(fields[2], 1, 31);
+        this.months = parseField(fields[3], 1, 12);
+        long weekdays = parseField(fields[4], 0, 7);
+        // Fold 7 onto Sunday
+        this.daysOfWeek = (weekdays | (weekdays >>> 7)) & 0x7F;
+        this.anyDayOfMonth = fields[2].startsWith("*");
+        this.anyDayOfWeek = fields[4].startsWith("*");
+    }
+
+    public static CronSchedule parse(String expression) {
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Schedule needs five fields (minute hour day month weekday): "
+                + expression);
+        }
+        return new CronSchedule(expression.trim(), fields);
+    }
+
+    // The first minute strictly after the given time that the schedule fires at
+    public ZonedDateTime next(ZonedDateTime after) {
+        LocalDateTime time = after.toLocalDateTime().truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        int lastYear = time.getYear() + MAX_YEARS_AHEAD;
+        while (time.getYear() <= lastYear) {
+            if (!has(months, time.getMonthValue())) {
+                time = time.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+            } else if (!matchesDay(time.toLocalDate())) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+            } else if (!has(hours, time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!has(minutes, time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                ZonedDateTime next = time.atZone(after.getZone());
+                // A time that falls in a daylight saving gap is moved forward by the zone; one
+                // repeated when clocks go back can land before the start
+                if (next.isAfter(after)) {
+                    return next;
+                }
+                time = time.plusMinutes(1);
+            }
+        }
+        throw new IllegalStateException("Schedule never fires: " + expression);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(LocalDate date) {
+        boolean dayOfMonth = has(daysOfMonth, date.getDayOfMonth());
+        boolean dayOfWeek = has(daysOfWeek, date.getDayOfWeek().getValue() % 7);
+        if (anyDayOfMonth || anyDayOfWeek) {
+            return dayOfMonth && dayOfWeek;
+        }
+        return dayOfMonth || dayOfWeek;
+    }
+
+    private static boolean has(long bits, int value) {
+        return (bits & (1L << value)) != 0;
+    }
+
+    private static long parseField(String field, int min, int max) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, max, field);
+                part = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else {
+                int dash = part.indexOf('-');
+                from = parseNumber(dash < 0 ? part : part.substring(0, dash), min, max, field);
+                // "5/15" means every 15 from 5 on, as in most crons
+                to = dash >= 0 ? parseNumber(part.substring(dash + 1), from, max, field) : slash >= 0 ? max : from;
+            }
+            for (int value = from; value <= to; value += step) {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseNumber(String text, int min, int max, String field) {
+        try {
+            int value = Integer.parseInt(text);
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Bad schedule field '" + field + "', expected values " + min + "-" + max);
+    }
+}
@@ -0,0 +1,53 @@
+package com.inventory.report;
+
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+// One column of exported data, read by row number through a primitive accessor so that
+// writing a row never boxes
+final class ExportColumn {
+    // Type codes as stored in the columnar format
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte STRING = 4;
+
+    final String name;
+    final byte type;
+    // Decimal places in text formats; the columnar format stores the double itself
+    final int decimals;
+    final IntUnaryOperator intValue;
+    final IntToLongFunction longValue;
+    final IntToDoubleFunction doubleValue;
+    final IntFunction<String> stringValue;
+
+    private ExportColumn(String name, byte type, int decimals, IntUnaryOperator intValue,
+                         IntToLongFunction longValue, IntToDoubleFunction doubleValue,
+                         IntFunction<String> stringValue) {
+        this.name = name;
+        this.type = type;
+        this.decimals = decimals;
+        this.intValue = intValue;
+        this.longValue = longValue;
+        this.doubleValue = doubleValue;
+        this.stringValue = stringValue;
+    }
+
+    static ExportColumn ofInt(String name, IntUnaryOperator value) {
+        return new ExportColumn(name, INT, 0, value, null, null, null);
+    }
+
+    static ExportColumn ofLong(String name, IntToLongFunction value) {
+        return new ExportColumn(name, LONG, 0, null, value, null, null);
+    }
+
+    static ExportColumn ofDouble(String name, int decimals, IntToDoubleFunction value) {
+        return new ExportColumn(name, DOUBLE, decimals, null, null, value, null);
+    }
+
+    static ExportColumn ofString(String name, IntFunction<String> value) {
+        return new ExportColumn(name, STRING, 0, null, null, null, value);
+    }
+}
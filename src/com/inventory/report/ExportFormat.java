@@ -0,0 +1,30 @@
+package com.inventory.report;
+
+import java.util.Locale;
+
+// Machine-readable formats for report data, as opposed to the fixed-width text reports
+public enum ExportFormat {
+    CSV("csv"),
+    JSON_LINES("jsonl"),
+    // Binary, column by column; see ColumnarWriter for the layout
+    COLUMNAR("col");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() { return extension; }
+
+    // The format a file name's extension asks for, or null for anything else
+    public static ExportFormat forFileName(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (lower.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
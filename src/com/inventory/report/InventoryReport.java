@@ -1,66 +1,101 @@
 package com.inventory.report;
 
+import com.inventory.format.ColumnLayout;
 import com.inventory.model.Product;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 
 public class InventoryReport implements Report {
-    
+    private static final ColumnLayout AMOUNT = ColumnLayout.compile("%,.2f");
+    private static final ColumnLayout HEADER = ColumnLayout.compile("%-5s %-30s %-10s %-10s %-15s %s\n");
+    private static final ColumnLayout ROW = ColumnLayout.compile("%-5d %-30s $%-9.2f %-10d $%-14.2f %s\n");
+
+    private final ReportEngine engine;
+
+    public InventoryReport() {
+        this(ReportEngine.sequential());
+    }
+
+    public InventoryReport(ReportEngine engine) {
+        this.engine = engine;
+    }
+
+    // Summary figures for one chunk of the catalog
+    private static final class Totals {
+        private long totalItems;
+        private double totalValue;
+        private int lowStockItems;
+        private int outOfStockItems;
+    }
+
     @Override
-    public String generate(List<Product> products) {
-        StringBuilder report = new StringBuilder();
+    public void write(List<Product> products, Appendable report) throws IOException {
+        // The summary comes first, so totals are computed in a cheap pass of their own and the
+        // listing is then formatted and written a window of chunks at a time
+        long totalItems = 0;
+        double totalValue = 0.0;
+        int lowStockItems = 0;
+        int outOfStockItems = 0;
+        for (Totals totals : engine.mapChunks(products, InventoryReport::total)) {
+            totalItems += totals.totalItems;
+            totalValue += totals.totalValue;
+            lowStockItems += totals.lowStockItems;
+            outOfStockItems += totals.outOfStockItems;
+        }
+
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        
+
         // Header with current timestamp
         report.append("=== INVENTORY STATUS REPORT ===\n");
         report.append("Generated: ").append(sdf.format(new Date())).append("\n\n");
-        
+
         // Summary section
         report.append("INVENTORY SUMMARY\n");
         report.append("----------------\n");
-        report.append("Total Product Types: ").append(products.size()).append("\n");
-        
-        // Calculate totals
-        int totalItems = 0;
-        double totalValue = 0.0;
-        int lowStockItems = 0;
-        int outOfStockItems = 0;
-        
-        for (Product product : products) {
-            totalItems += product.getStock();
-            totalValue += (product.getPrice() * product.getStock());
-            if (product.getStock() == 0) outOfStockItems++;
-            else if (product.getStock() < 10) lowStockItems++;
-        }
-        
-        report.append("Total Items in Stock: ").append(totalItems).append("\n");
-        report.append("Total Inventory Value: $").append(String.format("%,.2f", totalValue)).append("\n");
-        report.append("Low Stock Items (<10): ").append(lowStockItems).append("\n");
-        report.append("Out of Stock Items: ").append(outOfStockItems).append("\n\n");
-        
+        report.append("Total Product Types: ").append(String.valueOf(products.size())).append("\n");
+        report.append("Total Items in Stock: ").append(String.valueOf(totalItems)).append("\n");
+        report.append("Total Inventory Value: $").append(AMOUNT.newLine().add(totalValue).format()).append("\n");
+        report.append("Low Stock Items (<10): ").append(String.valueOf(lowStockItems)).append("\n");
+        report.append("Out of Stock Items: ").append(String.valueOf(outOfStockItems)).append("\n\n");
+
         // Detailed inventory listing
         report.append("DETAILED INVENTORY LISTING\n");
         report.append("-------------------------\n");
-        report.append(String.format("%-5s %-30s %-10s %-10s %-15s %s\n", 
-            "ID", "Description", "Price", "Stock", "Value", "Status"));
+        HEADER.newLine().add("ID").add("Description").add("Price").add("Stock").add("Value").add("Status")
+            .appendTo(report);
         report.append("--------------------------------------------------------------------------------\n");
-        
+        engine.forEachChunk(products, InventoryReport::formatRows, report::append);
+    }
+
+    private static Totals total(List<Product> products) {
+        Totals totals = new Totals();
+        for (Product product : products) {
+            totals.totalItems += product.getStock();
+            totals.totalValue += (product.getPrice() * product.getStock());
+            if (product.getStock() == 0) totals.outOfStockItems++;
+            else if (product.getStock() < 10) totals.lowStockItems++;
+        }
+        return totals;
+    }
+
+    private static StringBuilder formatRows(List<Product> products) {
+        StringBuilder rows = new StringBuilder(products.size() * 80);
+        ColumnLayout.Line row = ROW.newLine();
         for (Product product : products) {
             double itemValue = product.getPrice() * product.getStock();
             String status = product.getStock() == 0 ? "OUT OF STOCK" :
                           product.getStock() < 10 ? "LOW STOCK" : "OK";
-            
-            report.append(String.format("%-5d %-30s $%-9.2f %-10d $%-14.2f %s\n",
-                product.getId(),
-                product.getDescription(),
-                product.getPrice(),
-                product.getStock(),
-                itemValue,
-                status
-            ));
+
+            row.add(product.getId())
+               .add(product.getDescription())
+               .add(product.getPrice())
+               .add(product.getStock())
+               .add(itemValue)
+               .add(status)
+               .appendTo(rows);
         }
-        
-        return report.toString();
+        return rows;
     }
-}
\ No newline at end of file
+}
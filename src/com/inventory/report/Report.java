@@ -1,8 +1,22 @@
 package com.inventory.report;
 
 import com.inventory.model.Product;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 public interface Report {
-    String generate(List<Product> products);
-}
\ No newline at end of file
+    // Writes the report piece by piece, so the sink decides how much of it is ever in memory
+    void write(List<Product> products, Appendable out) throws IOException;
+
+    default String generate(List<Product> products) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            write(products, sb);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+}
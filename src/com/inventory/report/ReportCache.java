@@ -0,0 +1,219 @@
+package com.inventory.report;
+
+import com.inventory.repository.SalesQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Finished reports keyed by report type and sales query. A cached report is served until a
+// change event invalidates the cache or it is older than the TTL, which covers changes made
+// outside this process. Concurrent requests for the same report share one computation.
+// Expired reports are only let go of when next requested, unless startEviction() is running.
+public class ReportCache<V> {
+    private final long ttlNanos;
+    // Told about every finished report the cache lets go of, e.g. to delete its spool file
+    private final Consumer<? super V> onDiscard;
+    private final Map<Key, Flight<V>> reports = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a report started before the bump is never served after it
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledExecutorService evictor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private static final class Key {
+        private final String type;
+        private final SalesQuery query;
+
+        private Key(String type, SalesQuery query) {
+            this.type = type.toLowerCase();
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return type.equals(other.type) && Objects.equals(query, other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Objects.hashCode(query);
+        }
+    }
+
+    // One computation of a report, shared by everyone who asks while it runs
+    private static final class Flight<V> {
+        private final long generation;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        private Flight(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    public ReportCache(long ttlMillis) {
+        this(ttlMillis, null);
+    }
+
+    public ReportCache(long ttlMillis, Consumer<? super V> onDiscard) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.onDiscard = onDiscard;
+    }
+
+    // Returns the cached report, or runs generator once for all concurrent callers. A failed
+    // computation is not cached; every caller waiting on it gets the failure, except when the
+    // caller running it was cancelled, in which case the next waiter takes over.
+    public V get(String reportType, SalesQuery query, Callable<V> generator) throws Exception {
+        Key key = new Key(reportType, query);
+        Flight<V> flight;
+        while (true) {
+            long current = generation.get();
+            Flight<V> candidate = new Flight<>(current);
+            List<Flight<V>> replaced = new ArrayList<>(1);
+            flight = reports.compute(key, (k, existing) -> {
+                if (existing != null && isFresh(existing, current)) {
+                    return existing;
+                }
+                if (existing != null) {
+                    replaced.add(existing);
+                }
+                return candidate;
+            });
+            replaced.forEach(this::discard);
+            if (flight == candidate) {
+                break;
+            }
+            hits.increment();
+            V content = await(flight);
+            if (content != null) {
+                return content;
+            }
+        }
+
+        misses.increment();
+        try {
+            V content = generator.call();
+            flight.completedAt = System.nanoTime();
+            flight.result.complete(content);
+            return content;
+        } catch (Exception | Error e) {
+            reports.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        for (Key key : reports.keySet()) {
+            Flight<V> flight = reports.remove(key);
+            if (flight != null) {
+                discard(flight);
+            }
+        }
+        invalidations.increment();
+    }
+
+    // Checks for expired reports every TTL, on a daemon thread, until stopEviction()
+    public synchronized void startEviction() {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "report-cache-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(TimeUnit.NANOSECONDS.toMillis(ttlNanos), 1000);
+        evictor.scheduleWithFixedDelay(this::evictExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopEviction() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+    }
+
+    // Removes finished reports older than the TTL and returns how many there were. Reports
+    // still being generated are left alone.
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<Key, Flight<V>> entry : reports.entrySet()) {
+            Flight<V> flight = entry.getValue();
+            // completedAt is written before the result completes, so it is set once isDone()
+            if (flight.result.isDone() && now - flight.completedAt >= ttlNanos
+                    && reports.remove(entry.getKey(), flight)) {
+                discard(flight);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getInvalidationCount() { return invalidations.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("ReportCache[cached=%d, hits=%d, misses=%d, invalidations=%d]",
+            reports.size(), getHitCount(), getMissCount(), getInvalidationCount());
+    }
+
+    private boolean isFresh(Flight<V> flight, long current) {
+        if (flight.generation != current || flight.result.isCompletedExceptionally()) {
+            return false;
+        }
+        // Still running counts as fresh, so callers join it instead of starting another
+        return !flight.result.isDone() || System.nanoTime() - flight.completedAt < ttlNanos;
+    }
+
+    // Interruptible wait, so cancelling a caller that is only waiting still stops it. Returns
+    // null when the computation was abandoned because the caller running it was cancelled.
+    private static <V> V await(Flight<V> flight) throws Exception {
+        try {
+            return flight.result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                return null;
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    // A report still being generated is discarded as soon as it finishes; failed ones have
+    // nothing to discard
+    private void discard(Flight<V> flight) {
+        if (onDiscard == null) {
+            return;
+        }
+        flight.result.whenComplete((content, error) -> {
+            if (content != null) {
+                onDiscard.accept(content);
+            }
+        });
+    }
+}
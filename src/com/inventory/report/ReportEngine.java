@@ -0,0 +1,172 @@
+package com.inventory.report;
+
+import com.inventory.config.Configuration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+// Splits report input into fixed-size chunks and processes them on a fork-join pool. Chunk
+// boundaries depend only on the chunk size, and results come back in chunk order, so the merged
+// report is the same no matter how many threads worked on it. Small inputs stay on the caller.
+public class ReportEngine {
+    // Null when everything runs on the calling thread
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int parallelThreshold;
+
+    public ReportEngine(Configuration config) {
+        this(config.getInt("reports.parallelism", Runtime.getRuntime().availableProcessors()),
+            config.getInt("reports.chunkSize", 4096),
+            config.getInt("reports.parallelThreshold", 20_000));
+    }
+
+    public ReportEngine(int parallelism, int chunkSize, int parallelThreshold) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.chunkSize = chunkSize;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public static ReportEngine sequential() {
+        return new ReportEngine(1, 4096, Integer.MAX_VALUE);
+    }
+
+    // Receives chunk results in order; may write them out
+    @FunctionalInterface
+    public interface ChunkConsumer<P> {
+        void accept(P result) throws IOException;
+    }
+
+    // Applies mapper to consecutive sublists of items and returns the results in order.
+    // Interrupting the caller abandons the remaining chunks with a CancellationException.
+    public <T, P> List<P> mapChunks(List<T> items, Function<List<T>, P> mapper) {
+        return map(items, mapper, isParallel(items));
+    }
+
+    // Like mapChunks, but works through the input a window of chunks at a time and hands each
+    // result to the consumer in order before mapping the next window. Only one window of
+    // results is ever held, however long the input.
+    public <T, P> void forEachChunk(List<T> items, Function<List<T>, P> mapper, ChunkConsumer<? super P> consumer)
+            throws IOException {
+        boolean parallel = isParallel(items);
+        // Two chunks per thread keeps every worker busy; a whole number of chunks keeps the
+        // boundaries where mapChunks would put them
+        int windowItems = (parallel ? pool.getParallelism() * 2 : 1) * chunkSize;
+        for (int start = 0; start < items.size(); start += windowItems) {
+            List<T> window = items.subList(start, Math.min(items.size(), start + windowItems));
+            for (P result : map(window, mapper, parallel)) {
+                consumer.accept(result);
+            }
+        }
+    }
+
+    private boolean isParallel(List<?> items) {
+        return pool != null && items.size() >= parallelThreshold;
+    }
+
+    private <T, P> List<P> map(List<T> items, Function<List<T>, P> mapper, boolean parallel) {
+        int chunks = (items.size() + chunkSize - 1) / chunkSize;
+        Object[] results = new Object[chunks];
+        if (!parallel || chunks < 2) {
+            for (int i = 0; i < chunks; i++) {
+                results[i] = mapper.apply(chunk(items, i));
+            }
+        } else {
+            ChunkTask<T, P> task = new ChunkTask<>(items, mapper, results, 0, chunks);
+            ForkJoinTask<Void> running = pool.submit(task);
+            try {
+                running.get();
+            } catch (InterruptedException e) {
+                task.cancelled = true;
+                running.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Report generation cancelled");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        List<P> ordered = new ArrayList<>(chunks);
+        for (Object result : results) {
+            @SuppressWarnings("unchecked")
+            P typed = (P) result;
+            ordered.add(typed);
+        }
+        return ordered;
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReportEngine[parallelism=" + (pool == null ? 1 : pool.getParallelism())
+            + ", chunkSize=" + chunkSize + ", parallelThreshold=" + parallelThreshold + "]";
+    }
+
+    private <T> List<T> chunk(List<T> items, int index) {
+        int from = index * chunkSize;
+        return items.subList(from, Math.min(items.size(), from + chunkSize));
+    }
+
+    // Halves its range of chunk numbers until one is left, then maps that chunk in place.
+    // Serializable only because ForkJoinTask is; it is never serialized.
+    @SuppressWarnings("serial")
+    private final class ChunkTask<T, P> extends RecursiveAction {
+        private final List<T> items;
+        private final Function<List<T>, P> mapper;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        // Shared by every subtask of one run through the root task
+        private volatile boolean cancelled;
+        private final ChunkTask<T, P> root;
+
+        private ChunkTask(List<T> items, Function<List<T>, P> mapper, Object[] results, int from, int to) {
+            this(items, mapper, results, from, to, null);
+        }
+
+        private ChunkTask(List<T> items, Function<List<T>, P> mapper, Object[] results, int from, int to,
+                          ChunkTask<T, P> root) {
+            this.items = items;
+            this.mapper = mapper;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.root = root == null ? this : root;
+        }
+
+        @Override
+        protected void compute() {
+            if (root.cancelled) {
+                return;
+            }
+            if (to - from == 1) {
+                results[from] = mapper.apply(chunk(items, from));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask<>(items, mapper, results, from, mid, root),
+                new ChunkTask<>(items, mapper, results, mid, to, root));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.inventory.report;
+
+import com.inventory.model.Product;
+import com.inventory.repository.OrderRepository;
+import com.inventory.repository.SalesQuery;
+import com.inventory.repository.SalesTable;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Exports the rows behind the inventory and sales reports as data files. Everything that is
+// the same on every row (header, JSON keys, separators) is encoded to bytes once, and the
+// values are written through a ByteSink, so a catalog export is limited by the disk rather
+// than by formatting.
+public class ReportExporter {
+    private static final byte[] CSV_LINE_END = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_LINE_END = "}\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final OrderRepository orderRepo;
+
+    public ReportExporter(OrderRepository orderRepo) {
+        this.orderRepo = orderRepo;
+    }
+
+    // Writes target and returns its size in bytes. The sales query is ignored for the
+    // inventory export, which is always a current snapshot.
+    public long export(String reportType, SalesQuery salesQuery, List<Product> products, ExportFormat format,
+                       Path target) throws IOException {
+        String type = reportType == null ? "" : reportType.toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "inventory":
+                return write(inventoryColumns(products), products.size(), format, target);
+            case "sales":
+                SalesTable sales = orderRepo.summarizeSales(salesQuery != null ? salesQuery : SalesQuery.allTime())
+                    .getProducts();
+                return write(salesColumns(sales, products), sales.size(), format, target);
+            default:
+                throw new IllegalArgumentException("Unknown report type: " + reportType);
+        }
+    }
+
+    private static List<ExportColumn> inventoryColumns(List<Product> products) {
+        return Arrays.asList(
+            ExportColumn.ofInt("id", row -> products.get(row).getId()),
+            ExportColumn.ofString("description", row -> products.get(row).getDescription()),
+            ExportColumn.ofDouble("price", 2, row -> products.get(row).getPrice()),
+            ExportColumn.ofInt("stock", row -> products.get(row).getStock()),
+            ExportColumn.ofDouble("value", 2, row -> products.get(row).getPrice() * products.get(row).getStock()),
+            ExportColumn.ofString("status", row -> {
+                int stock = products.get(row).getStock();
+                return stock == 0 ? "OUT OF STOCK" : stock < 10 ? "LOW STOCK" : "OK";
+            }));
+    }
+
+    private static List<ExportColumn> salesColumns(SalesTable sales, List<Product> products) {
+        Map<Integer, String> descriptions = new HashMap<>(products.size() * 4 / 3 + 1);
+        for (Product product : products) {
+            descriptions.put(product.getId(), product.getDescription());
+        }
+        return Arrays.asList(
+            ExportColumn.ofInt("product_id", sales::getProductId),
+            ExportColumn.ofString("description", row -> descriptions.get(sales.getProductId(row))),
+            ExportColumn.ofLong("quantity", sales::getQuantity),
+            ExportColumn.ofDouble("revenue", 2, sales::getRevenue),
+            ExportColumn.ofLong("order_count", sales::getOrderCount));
+    }
+
+    private static long write(List<ExportColumn> columns, int rows, ExportFormat format, Path target)
+            throws IOException {
+        if (format == ExportFormat.COLUMNAR) {
+            return ColumnarWriter.write(columns, rows, target);
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteSink out = new ByteSink(channel);
+            if (format == ExportFormat.CSV) {
+                writeCsv(columns, rows, out);
+            } else {
+                writeJsonLines(columns, rows, out);
+            }
+            out.flush();
+            return out.getBytesWritten();
+        }
+    }
+
+    private static void writeCsv(List<ExportColumn> columns, int rows, ByteSink out) throws IOException {
+        for (int c = 0; c < columns.size(); c++) {
+            if (c > 0) {
+                out.put((byte) ',');
+            }
+            out.putCsvField(columns.get(c).name);
+        }
+        out.put(CSV_LINE_END);
+        for (int row = 0; row < rows; row++) {
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) {
+                    out.put((byte) ',');
+                }
+                ExportColumn column = columns.get(c);
+                switch (column.type) {
+                    case ExportColumn.INT:
+                        out.putLong(column.intValue.applyAsInt(row));
+                        break;
+                    case ExportColumn.LONG:
+                        out.putLong(column.longValue.applyAsLong(row));
+                        break;
+                    case ExportColumn.DOUBLE:
+                        // Non-finite values are left empty
+                        out.putFixed(column.doubleValue.applyAsDouble(row), column.decimals);
+                        break;
+                    default:
+                        out.putCsvField(column.stringValue.apply(row));
+                }
+            }
+            out.put(CSV_LINE_END);
+        }
+    }
+
+    private static void writeJsonLines(List<ExportColumn> columns, int rows, ByteSink out) throws IOException {
+        // "{"id":" for the first column, ","description":" and so on for the rest
+        byte[][] keys = new byte[columns.size()][];
+        for (int c = 0; c < columns.size(); c++) {
+            keys[c] = ((c == 0 ? "{\"" : ",\"") + columns.get(c).name + "\":").getBytes(StandardCharsets.UTF_8);
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int c = 0; c < columns.size(); c++) {
+                ExportColumn column = columns.get(c);
+                out.put(keys[c]);
+                switch (column.type) {
+                    case ExportColumn.INT:
+                        out.putLong(column.intValue.applyAsInt(row));
+                        break;
+                    case ExportColumn.LONG:
+                        out.putLong(column.longValue.applyAsLong(row));
+                        break;
+                    case ExportColumn.DOUBLE:
+                        if (!out.putFixed(column.doubleValue.applyAsDouble(row), column.decimals)) {
+                            out.putAscii("null");
+                        }
+                        break;
+                    default:
+                        out.putJsonString(column.stringValue.apply(row));
+                }
+            }
+            out.put(JSON_LINE_END);
+        }
+    }
+}
@@ -1,18 +1,51 @@
 package com.inventory.report;
 
+import com.inventory.repository.OrderRepository;
+import com.inventory.repository.SalesQuery;
+
 public class ReportFactory {
+    private final OrderRepository orderRepo;
+    private final ReportEngine engine;
+
+    public ReportFactory() {
+        this(new OrderRepository());
+    }
+
+    public ReportFactory(OrderRepository orderRepo) {
+        this(orderRepo, ReportEngine.sequential());
+    }
+
+    public ReportFactory(OrderRepository orderRepo, ReportEngine engine) {
+        this.orderRepo = orderRepo;
+        this.engine = engine;
+    }
+
     public Report createReport(String reportType) {
+        return createReport(reportType, null);
+    }
+
+    // The query narrows the sales report; the inventory report is always a current snapshot
+    public Report createReport(String reportType, SalesQuery salesQuery) {
         if (reportType == null) {
             return null;
         }
         
         switch (reportType.toLowerCase()) {
             case "inventory":
-                return new InventoryReport();
+                return new InventoryReport(engine);
             case "sales":
-                return new SalesReport();
+                return new SalesReport(orderRepo, salesQuery);
             default:
                 return null;
         }
     }
+
+    // Whether the sales query changes what a report type shows
+    public boolean usesQuery(String reportType) {
+        return "sales".equalsIgnoreCase(reportType);
+    }
+
+    public ReportExporter createExporter() {
+        return new ReportExporter(orderRepo);
+    }
 }
\ No newline at end of file
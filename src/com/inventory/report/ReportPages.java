@@ -0,0 +1,96 @@
+package com.inventory.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Fixed-size pages of lines over a spooled report. Opening it scans the file once to note
+// where each page starts; a page is then read from the file on demand, so viewing a report
+// of any size only ever holds one page in memory.
+public class ReportPages implements Closeable {
+    private final SpooledReport report;
+    private final FileChannel channel;
+    private final int linesPerPage;
+    private final long size;
+    // Byte offset of the first line of each page
+    private final long[] pageStarts;
+
+    ReportPages(SpooledReport report, int linesPerPage) throws IOException {
+        if (linesPerPage < 1) {
+            throw new IllegalArgumentException("Lines per page must be positive");
+        }
+        this.report = report;
+        this.linesPerPage = linesPerPage;
+        this.size = report.getSize();
+        // The open channel keeps the file readable even if it is unlinked while we page
+        this.channel = FileChannel.open(report.getFile(), StandardOpenOption.READ);
+        try {
+            this.pageStarts = indexPages();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getPageCount() { return pageStarts.length; }
+    public int getLinesPerPage() { return linesPerPage; }
+    public long getSize() { return size; }
+
+    public String readPage(int page) throws IOException {
+        if (page < 0 || page >= pageStarts.length) {
+            throw new IndexOutOfBoundsException("Page " + page + " of " + pageStarts.length);
+        }
+        long start = pageStarts[page];
+        long end = page + 1 < pageStarts.length ? pageStarts[page + 1] : size;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+        // Pages start at line starts, so no multi-byte character is ever split
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            report.release();
+        }
+    }
+
+    private long[] indexPages() throws IOException {
+        long[] starts = new long[16];
+        int pages = 1;
+        int lines = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n' && ++lines == linesPerPage) {
+                    lines = 0;
+                    long next = position + i + 1;
+                    if (next < size) {
+                        if (pages == starts.length) {
+                            starts = Arrays.copyOf(starts, pages * 2);
+                        }
+                        starts[pages++] = next;
+                    }
+                }
+            }
+            position += read;
+        }
+        return Arrays.copyOf(starts, pages);
+    }
+}
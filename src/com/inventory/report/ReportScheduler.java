@@ -0,0 +1,313 @@
+package com.inventory.report;
+
+import com.inventory.config.Configuration;
+import com.inventory.model.Product;
+import com.inventory.repository.ProductRepository;
+import com.inventory.repository.SalesQuery;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Builds the configured reports ahead of time on a background thread, each on its own cron
+// schedule, and keeps the latest copy of each as a spool file. A request for one of them is
+// then answered from that copy, however long the report takes to build. Copies are kept
+// until the next run or a manual regeneration replaces them, so they show the data as of
+// their generation time, unless invalidate() drops a type whose copies must stay current.
+public class ReportScheduler {
+    private final ProductRepository productRepo;
+    private final ReportFactory reportFactory;
+    private final Path spoolDirectory;
+    private final ZoneId zone;
+    private final boolean runOnStart;
+    private final List<ScheduledReport> reports;
+    // Latest finished copy by scheduled report name; each holds a reference to its spool file
+    private final Map<String, Precomputed> latest = new ConcurrentHashMap<>();
+    // Report type -> time of its last invalidation; a run started before it is not stored
+    private final Map<String, Instant> invalidatedAt = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    // Set by stop() so a run still in flight deletes its copy instead of storing it
+    private boolean stopped;
+
+    // One configured report: what to build and when
+    public static final class ScheduledReport {
+        private final String name;
+        private final String reportType;
+        private final CronSchedule schedule;
+        // Sales parameters; all unset means the overview generateReport(type) returns
+        private final LocalDate from;
+        private final LocalDate to;
+        private final int days;
+        private final String productFilter;
+        private final SalesQuery.Granularity granularity;
+
+        public ScheduledReport(String name, String reportType, CronSchedule schedule, LocalDate from, LocalDate to,
+                               int days, String productFilter, SalesQuery.Granularity granularity) {
+            this.name = name;
+            this.reportType = reportType.toLowerCase(Locale.ROOT);
+            this.schedule = schedule;
+            this.from = from;
+            this.to = to;
+            this.days = days;
+            this.productFilter = productFilter == null ? "" : productFilter.trim();
+            this.granularity = granularity;
+        }
+
+        public String getName() { return name; }
+        public String getReportType() { return reportType; }
+        public CronSchedule getSchedule() { return schedule; }
+
+        // The query as of today; a trailing window of days ends with today
+        SalesQuery query(LocalDate today) {
+            if (from == null && to == null && days <= 0 && productFilter.isEmpty() && granularity == null) {
+                return null;
+            }
+            if (days > 0) {
+                return new SalesQuery(today.minusDays(days - 1), today.plusDays(1), productFilter, granularity);
+            }
+            return new SalesQuery(from, to == null ? null : to.plusDays(1), productFilter, granularity);
+        }
+    }
+
+    // A finished report and when it was generated. Whoever receives one from retainLatest
+    // holds a reference to its spool file and must release it.
+    public static final class Precomputed {
+        private final String name;
+        private final String reportType;
+        private final SalesQuery query;
+        // The inventory snapshot answers every request for its type, whatever the query
+        private final boolean anyQuery;
+        private final SpooledReport report;
+        private final Instant generatedAt;
+
+        private Precomputed(String name, String reportType, SalesQuery query, boolean anyQuery, SpooledReport report,
+                            Instant generatedAt) {
+            this.name = name;
+            this.reportType = reportType;
+            this.query = query;
+            this.anyQuery = anyQuery;
+            this.report = report;
+            this.generatedAt = generatedAt;
+        }
+
+        public String getName() { return name; }
+        public SpooledReport getReport() { return report; }
+        public Instant getGeneratedAt() { return generatedAt; }
+
+        public void release() {
+            report.release();
+        }
+
+        private boolean answers(String type, SalesQuery requested) {
+            return reportType.equalsIgnoreCase(type) && (anyQuery || Objects.equals(query, requested));
+        }
+    }
+
+    public ReportScheduler(ProductRepository productRepo, ReportFactory reportFactory, Path spoolDirectory,
+                           List<ScheduledReport> reports, boolean runOnStart) {
+        this.productRepo = productRepo;
+        this.reportFactory = reportFactory;
+        this.spoolDirectory = spoolDirectory;
+        this.zone = ZoneId.systemDefault();
+        this.runOnStart = runOnStart;
+        this.reports = Collections.unmodifiableList(new ArrayList<>(reports));
+    }
+
+    // Reads the reports.scheduled list. Each name in it is configured under
+    // reports.scheduled.<name>.type, .schedule and the optional sales parameters .from, .to,
+    // .days, .product and .granularity. Entries that do not parse are skipped with a warning.
+    public static List<ScheduledReport> fromConfiguration(Configuration config) {
+        List<ScheduledReport> reports = new ArrayList<>();
+        for (String name : config.getString("reports.scheduled", "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String prefix = "reports.scheduled." + name + ".";
+            try {
+                String from = config.getString(prefix + "from", "").trim();
+                String to = config.getString(prefix + "to", "").trim();
+                String granularity = config.getString(prefix + "granularity", "").trim();
+                ScheduledReport report = new ScheduledReport(name,
+                    config.getString(prefix + "type", name),
+                    CronSchedule.parse(config.getString(prefix + "schedule", "0 6 * * *")),
+                    from.isEmpty() ? null : LocalDate.parse(from),
+                    to.isEmpty() ? null : LocalDate.parse(to),
+                    config.getInt(prefix + "days", 0),
+                    config.getString(prefix + "product", ""),
+                    granularity.isEmpty() ? null : SalesQuery.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT)));
+                // Rejects an empty date range or a schedule that never fires now rather than
+                // on every run
+                report.query(LocalDate.now());
+                report.schedule.next(ZonedDateTime.now());
+                reports.add(report);
+            } catch (RuntimeException e) {
+                System.err.println("Skipping scheduled report '" + name + "': " + e.getMessage());
+            }
+        }
+        return reports;
+    }
+
+    public List<ScheduledReport> getReports() {
+        return reports;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        stopped = false;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "report-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (ScheduledReport report : reports) {
+            if (runOnStart) {
+                // Nothing survives a restart, so build everything once rather than wait for
+                // the first scheduled time
+                scheduler.execute(() -> runQuietly(report));
+            }
+            scheduleNext(report);
+        }
+    }
+
+    // Stops the background thread and deletes the stored copies. A run that is still writing
+    // its report deletes it when done rather than storing it.
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        stopped = true;
+        scheduler.shutdownNow();
+        scheduler = null;
+        for (String name : new ArrayList<>(latest.keySet())) {
+            Precomputed removed = latest.remove(name);
+            if (removed != null) {
+                removed.release();
+            }
+        }
+    }
+
+    // Drops the stored copies of a report type after a change that makes them wrong, including
+    // any still being generated. Requests are then served fresh until the next scheduled run.
+    public synchronized void invalidate(String reportType) {
+        String type = reportType.toLowerCase(Locale.ROOT);
+        invalidatedAt.put(type, Instant.now());
+        for (Precomputed precomputed : new ArrayList<>(latest.values())) {
+            if (precomputed.reportType.equals(type) && latest.remove(precomputed.name, precomputed)) {
+                precomputed.release();
+            }
+        }
+    }
+
+    // The latest copy answering this request with a reference retained for the caller, or
+    // null if there is none
+    public Precomputed retainLatest(String reportType, SalesQuery query) {
+        for (Precomputed precomputed : latest.values()) {
+            // A copy replaced since we read the map is already deleted; try the next one
+            if (precomputed.answers(reportType, query) && precomputed.report.retain()) {
+                return precomputed;
+            }
+        }
+        return null;
+    }
+
+    // Whether a scheduled report answers this request as of today
+    public boolean isScheduled(String reportType, SalesQuery query) {
+        return !matching(reportType, query).isEmpty();
+    }
+
+    // Rebuilds, on the calling thread, every scheduled report that answers this request, and
+    // returns whether there was one. Failures are thrown to the caller rather than logged.
+    public boolean regenerate(String reportType, SalesQuery query) throws IOException, InterruptedException {
+        List<ScheduledReport> due = matching(reportType, query);
+        for (ScheduledReport report : due) {
+            run(report);
+        }
+        return !due.isEmpty();
+    }
+
+    private List<ScheduledReport> matching(String reportType, SalesQuery query) {
+        LocalDate today = LocalDate.now(zone);
+        List<ScheduledReport> found = new ArrayList<>();
+        for (ScheduledReport report : reports) {
+            if (report.reportType.equalsIgnoreCase(reportType) && (!reportFactory.usesQuery(reportType)
+                    || Objects.equals(report.query(today), query))) {
+                found.add(report);
+            }
+        }
+        return found;
+    }
+
+    private synchronized void scheduleNext(ScheduledReport report) {
+        if (scheduler == null) {
+            return;
+        }
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        long delay = report.schedule.next(now).toInstant().toEpochMilli() - now.toInstant().toEpochMilli();
+        scheduler.schedule(() -> {
+            runQuietly(report);
+            scheduleNext(report);
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void runQuietly(ScheduledReport report) {
+        try {
+            run(report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // The previous copy, if any, stays in place until the next run
+            System.err.println("Scheduled report '" + report.name + "' failed: " + e.getMessage());
+        }
+    }
+
+    private void run(ScheduledReport scheduled) throws IOException, InterruptedException {
+        Instant started = Instant.now();
+        SalesQuery query = scheduled.query(LocalDate.now(zone));
+        Report report = reportFactory.createReport(scheduled.reportType, query);
+        if (report == null) {
+            throw new IllegalArgumentException("Unknown report type: " + scheduled.reportType);
+        }
+        List<Product> products = productRepo.findAll();
+        SpooledReport spooled = SpooledReport.write(report, products, spoolDirectory);
+        if (Thread.currentThread().isInterrupted()) {
+            spooled.release();
+            throw new InterruptedException("Report scheduler stopped");
+        }
+        store(new Precomputed(scheduled.name, scheduled.reportType, query,
+            !reportFactory.usesQuery(scheduled.reportType), spooled, started));
+    }
+
+    // A scheduled run and a manual regeneration can overlap; the copy started last wins
+    private synchronized void store(Precomputed fresh) {
+        Instant invalidated = invalidatedAt.get(fresh.reportType);
+        if (stopped || (invalidated != null && !fresh.generatedAt.isAfter(invalidated))) {
+            fresh.release();
+            return;
+        }
+        Precomputed[] discarded = new Precomputed[1];
+        latest.merge(fresh.name, fresh, (current, candidate) -> {
+            boolean newer = !candidate.generatedAt.isBefore(current.generatedAt);
+            discarded[0] = newer ? current : candidate;
+            return newer ? candidate : current;
+        });
+        if (discarded[0] != null) {
+            discarded[0].release();
+        }
+    }
+}
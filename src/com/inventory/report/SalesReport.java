@@ -1,92 +1,125 @@
 package com.inventory.report;
 
+import com.inventory.format.ColumnLayout;
 import com.inventory.model.Product;
 import com.inventory.repository.OrderRepository;
+import com.inventory.repository.ProductSales;
+import com.inventory.repository.SalesQuery;
+import com.inventory.repository.SalesSummary;
+import java.io.IOException;
 import java.util.*;
 import java.text.SimpleDateFormat;
 
 public class SalesReport implements Report {
+    private static final int TOP_PRODUCTS = 5;
+    // The overview without a query shows only the most recent months of trend
+    private static final int OVERVIEW_TREND_MONTHS = 6;
+    private static final ColumnLayout AMOUNT = ColumnLayout.compile("%,.2f");
+    private static final ColumnLayout TOP_HEADER = ColumnLayout.compile("%-30s %-12s %-12s %s\n");
+    private static final ColumnLayout TOP_ROW = ColumnLayout.compile("%-30s %-12d $%-11.2f %.1f%%\n");
+    private static final ColumnLayout TREND_ROW = ColumnLayout.compile("%-10s $%,12.2f %8d orders\n");
+
     private final OrderRepository orderRepo;
-    
+    // Null for the all-time overview
+    private final SalesQuery query;
+
     public SalesReport() {
-        this.orderRepo = new OrderRepository();
+        this(new OrderRepository());
+    }
+
+    public SalesReport(OrderRepository orderRepo) {
+        this(orderRepo, null);
+    }
+
+    public SalesReport(OrderRepository orderRepo, SalesQuery query) {
+        this.orderRepo = orderRepo;
+        this.query = query;
     }
-    
+
     @Override
-    public String generate(List<Product> products) {
-        StringBuilder report = new StringBuilder();
+    public void write(List<Product> products, Appendable report) throws IOException {
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        
+        SalesQuery effective = query != null ? query : SalesQuery.allTime();
+
         // Header
         report.append("=== SALES PERFORMANCE REPORT ===\n");
-        report.append("Generated: ").append(sdf.format(new Date())).append("\n\n");
-        
-        Map<String, Map<String, Object>> salesData = orderRepo.getDetailedSalesData();
-        
-        // Sales Summary
-        double totalRevenue = 0.0;
-        int totalUnitsSold = 0;
-        Set<String> uniqueCustomers = new HashSet<>();
-        
-        for (Map.Entry<String, Map<String, Object>> entry : salesData.entrySet()) {
-            Map<String, Object> data = entry.getValue();
-            totalRevenue += (Double) data.get("revenue");
-            totalUnitsSold += (Integer) data.get("quantity");
-            uniqueCustomers.add((String) data.get("customer"));
+        report.append("Generated: ").append(sdf.format(new Date())).append("\n");
+        if (query != null) {
+            report.append("Period: ").append(query.describe()).append("\n");
         }
-        
+        report.append("\n");
+
+        // A DataAccessException is left to the caller, so a report missing its data is never
+        // cached or stored as if it had been generated
+        SalesSummary summary = orderRepo.summarizeSales(effective);
+
+        // Sales Summary
+        double totalRevenue = summary.getTotalRevenue();
+        long totalOrders = summary.getTotalOrders();
+
         report.append("SALES SUMMARY\n");
         report.append("-------------\n");
-        report.append("Total Revenue: $").append(String.format("%,.2f", totalRevenue)).append("\n");
-        report.append("Total Units Sold: ").append(totalUnitsSold).append("\n");
-        report.append("Unique Customers: ").append(uniqueCustomers.size()).append("\n");
+        ColumnLayout.Line amount = AMOUNT.newLine();
+        report.append("Total Revenue: $").append(amount.add(totalRevenue).format()).append("\n");
+        report.append("Total Units Sold: ").append(String.valueOf(summary.getTotalQuantity())).append("\n");
+        report.append("Total Orders: ").append(String.valueOf(totalOrders)).append("\n");
         report.append("Average Order Value: $")
-              .append(String.format("%,.2f", totalRevenue / uniqueCustomers.size()))
+              .append(amount.add(totalOrders == 0 ? 0.0 : totalRevenue / totalOrders).format())
               .append("\n\n");
-        
+
         // Top Selling Products
         report.append("TOP SELLING PRODUCTS\n");
         report.append("-------------------\n");
-        report.append(String.format("%-30s %-12s %-12s %s\n", 
-            "Product", "Units Sold", "Revenue", "% of Total"));
+        TOP_HEADER.newLine().add("Product").add("Units Sold").add("Revenue").add("% of Total").appendTo(report);
         report.append("----------------------------------------------------------\n");
-        
-        // Sort products by revenue
-        List<Map.Entry<String, Map<String, Object>>> sortedEntries = 
-            new ArrayList<>(salesData.entrySet());
-        sortedEntries.sort((e1, e2) -> {
-            Double rev2 = (Double) e2.getValue().get("revenue");
-            Double rev1 = (Double) e1.getValue().get("revenue");
-            return rev2.compareTo(rev1);
-        });
-        
-        // Show top 5 products
-        int count = 0;
-        for (Map.Entry<String, Map<String, Object>> entry : sortedEntries) {
-            if (count++ >= 5) break;
-            
-            Map<String, Object> data = entry.getValue();
-            double revenue = (Double) data.get("revenue");
-            int quantity = (Integer) data.get("quantity");
-            double percentage = (revenue / totalRevenue) * 100;
-            
-            report.append(String.format("%-30s %-12d $%-11.2f %.1f%%\n",
-                entry.getKey(),
-                quantity,
-                revenue,
-                percentage
-            ));
+
+        List<ProductSales> top = summary.getProducts().topByRevenue(TOP_PRODUCTS);
+        if (top.isEmpty()) {
+            report.append("No sales data available\n");
+        }
+        String[] names = describe(top, products);
+        ColumnLayout.Line topRow = TOP_ROW.newLine();
+        for (int i = 0; i < top.size(); i++) {
+            ProductSales sales = top.get(i);
+            double percentage = totalRevenue == 0 ? 0.0 : (sales.getRevenue() / totalRevenue) * 100;
+
+            topRow.add(names[i])
+                  .add(sales.getQuantity())
+                  .add(sales.getRevenue())
+                  .add(percentage)
+                  .appendTo(report);
         }
-        
-        // Monthly Trend
-        report.append("\nMONTHLY SALES TREND\n");
+
+        // Sales Trend
+        SalesQuery.Granularity granularity = effective.getGranularity();
+        String period = granularity == SalesQuery.Granularity.DAY ? "DAILY" : granularity.name() + "LY";
+        report.append("\n").append(period).append(" SALES TREND\n");
         report.append("-------------------\n");
-        Map<String, Double> monthlyTrend = orderRepo.getMonthlyTrend();
-        for (Map.Entry<String, Double> entry : monthlyTrend.entrySet()) {
-            report.append(String.format("%-10s $%,12.2f\n", 
-                entry.getKey(), entry.getValue()));
+        int first = query != null ? 0 : Math.max(0, summary.getBucketCount() - OVERVIEW_TREND_MONTHS);
+        ColumnLayout.Line trendRow = TREND_ROW.newLine();
+        for (int i = first; i < summary.getBucketCount(); i++) {
+            trendRow.add(summary.getBucketLabel(i))
+                    .add(summary.getBucketRevenue(i))
+                    .add(summary.getBucketOrders(i))
+                    .appendTo(report);
+        }
+    }
+
+    // Descriptions for the listed products, found in one pass over the catalog
+    private static String[] describe(List<ProductSales> sales, List<Product> products) {
+        String[] names = new String[sales.size()];
+        for (Product product : products) {
+            for (int i = 0; i < names.length; i++) {
+                if (sales.get(i).getProductId() == product.getId()) {
+                    names[i] = product.getDescription();
+                }
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == null) {
+                names[i] = "Product #" + sales.get(i).getProductId();
+            }
         }
-        
-        return report.toString();
+        return names;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package com.inventory.report;
+
+import com.inventory.model.Product;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A generated report written to a spool file instead of being held as one String. The file is
+// reference counted: whoever creates it holds the first reference, readers retain() before use
+// and release() after, and the file is deleted when the last reference goes. Each process
+// spools into its own subdirectory, so files left behind by one that died can be swept later.
+public class SpooledReport {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PROCESS_PREFIX = "pid-";
+
+    private final Path file;
+    private final long size;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private SpooledReport(Path file, long size) {
+        this.file = file;
+        this.size = size;
+    }
+
+    // Streams the report into a new file in directory through a buffered writer on a FileChannel
+    public static SpooledReport write(Report report, List<Product> products, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "report-", ".txt");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer out = new BufferedWriter(
+                 Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE)) {
+            report.write(products, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new SpooledReport(file, Files.size(file));
+    }
+
+    // This process's subdirectory of the spool root
+    public static Path processDirectory(Path spoolRoot) {
+        return spoolRoot.resolve(PROCESS_PREFIX + ProcessHandle.current().pid());
+    }
+
+    // Deletes the subdirectories of processes that are no longer running, and of this one,
+    // which has nothing spooled yet when called at startup. Returns the number of files deleted.
+    public static int sweep(Path spoolRoot) {
+        if (!Files.isDirectory(spoolRoot)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(spoolRoot, PROCESS_PREFIX + "*")) {
+            for (Path dir : dirs) {
+                if (!shouldKeep(dir)) {
+                    deleted += deleteAll(dir);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not sweep report spool directory " + spoolRoot + ": " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    // Deletes a spool directory and every file in it; returns the number of files deleted
+    public static int deleteAll(Path directory) {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+            Files.deleteIfExists(directory);
+        } catch (NoSuchFileException e) {
+            // Nothing was ever spooled
+        } catch (IOException e) {
+            System.err.println("Could not delete report spool directory " + directory + ": " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    // Another live process is still using its directory; anything not named by pid is not ours
+    private static boolean shouldKeep(Path dir) {
+        try {
+            long pid = Long.parseLong(dir.getFileName().toString().substring(PROCESS_PREFIX.length()));
+            return pid != ProcessHandle.current().pid() && ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public Path getFile() { return file; }
+    public long getSize() { return size; }
+
+    // False once the file has been deleted; the caller must then generate the report again
+    public boolean retain() {
+        while (true) {
+            int current = references.get();
+            if (current == 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Still open elsewhere on some platforms; the next startup sweep removes it
+                System.err.println("Could not delete report spool file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Only for reports small enough to hold in memory; callers must hold a reference
+    public String readAll() throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    // Copies the spool file to target channel-to-channel, without passing it through the heap.
+    // Callers must hold a reference.
+    public long copyTo(Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            return position;
+        }
+    }
+
+    // Opens a paged view that keeps its own reference until closed, or returns null if the
+    // file is already gone
+    public ReportPages openPages(int linesPerPage) throws IOException {
+        if (!retain()) {
+            return null;
+        }
+        try {
+            return new ReportPages(this, linesPerPage);
+        } catch (IOException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+}
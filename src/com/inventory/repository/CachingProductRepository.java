@@ -0,0 +1,179 @@
+package com.inventory.repository;
+
+import com.inventory.db.ConnectionProvider;
+import com.inventory.model.Product;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Write-through cache in front of ProductRepository. Reads are served from memory once
+// loaded; writes go to the database first and then patch or drop the affected entries.
+public class CachingProductRepository extends ProductRepository {
+    private final ProductCache cache;
+    // True while the cache holds every row of the products table
+    private volatile boolean catalogComplete;
+    // Bumped as soon as a write has reached the database, before the cache is patched. A full
+    // read that overlapped a bump may have seen the row before the write, so it is returned
+    // but not cached.
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingProductRepository(ConnectionProvider connections, ProductCache cache) {
+        this(connections, null, null, cache);
+    }
+
+    public CachingProductRepository(ConnectionProvider connections, OutboxRepository outbox,
+                                    OptimisticConcurrency concurrency, ProductCache cache) {
+        super(connections, outbox, concurrency);
+        this.cache = cache;
+    }
+
+    public ProductCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public List<Product> findAll() {
+        if (catalogComplete) {
+            cache.recordHit();
+            return cache.snapshot();
+        }
+        cache.recordMiss();
+        long before = generation.get();
+        List<Product> products = super.findAll();
+        // Under the cache's lock, so a writer that bumps the generation after this check patches
+        // its entry after the replacement rather than before it
+        synchronized (cache) {
+            if (generation.get() == before) {
+                // Too many products to hold at once: keep the hottest ones and keep scanning for findAll()
+                catalogComplete = cache.replaceAll(products);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public List<Product> findPage(int afterId, int pageSize) {
+        if (!catalogComplete) {
+            return super.findPage(afterId, pageSize);
+        }
+        cache.recordHit();
+        return cache.pageAfter(afterId, pageSize);
+    }
+
+    @Override
+    public Stream<Product> streamAll() {
+        // Streaming is meant for catalogs too large to cache, so it never populates the cache
+        return catalogComplete ? cache.snapshot().stream() : super.streamAll();
+    }
+
+    @Override
+    public Product findById(int productId) {
+        Product product = cache.get(productId);
+        if (product == null && !catalogComplete) {
+            product = super.findById(productId);
+            if (product != null && cache.put(product)) {
+                catalogComplete = false;
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public Map<Integer, Product> findByIds(Collection<Integer> productIds) {
+        Map<Integer, Product> products = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int productId : productIds) {
+            Product product = cache.get(productId);
+            if (product != null) {
+                products.put(productId, product);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty() && !catalogComplete) {
+            for (Product product : super.findByIds(missing).values()) {
+                products.put(product.getId(), product);
+                if (cache.put(product)) {
+                    catalogComplete = false;
+                }
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public List<Product> findByDescription(String description) {
+        if (catalogComplete) {
+            cache.recordHit();
+            return cache.getByDescription(description);
+        }
+        cache.recordMiss();
+        List<Product> products = super.findByDescription(description);
+        for (Product product : products) {
+            if (cache.put(product)) {
+                catalogComplete = false;
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public int adjustStock(int productId, int quantity) {
+        int newLevel = super.adjustStock(productId, quantity);
+        if (newLevel >= 0) {
+            generation.incrementAndGet();
+            cache.updateStock(productId, newLevel);
+        }
+        return newLevel;
+    }
+
+    @Override
+    public boolean save(Product product) {
+        boolean success = super.save(product);
+        if (success) {
+            generation.incrementAndGet();
+            // The generated id is not known here, so the next full read has to go to the database
+            catalogComplete = false;
+        }
+        return success;
+    }
+
+    @Override
+    public int insertProduct(String description, double price, int stock) {
+        int productId = super.insertProduct(description, price, stock);
+        if (productId > 0) {
+            generation.incrementAndGet();
+            if (cache.put(new Product(productId, description, price, stock))) {
+                catalogComplete = false;
+            }
+        }
+        return productId;
+    }
+
+    // Re-reads just the changed rows in one query so a fully loaded catalog stays complete
+    @Override
+    public void invalidate(Collection<Integer> productIds) {
+        generation.incrementAndGet();
+        Map<Integer, Product> fresh = super.findByIds(productIds);
+        for (int productId : productIds) {
+            Product product = fresh.get(productId);
+            if (product == null) {
+                cache.invalidate(productId);
+                catalogComplete = false;
+            } else if (cache.peek(productId) != null) {
+                cache.put(product);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        catalogComplete = false;
+        cache.clear();
+    }
+}
@@ -0,0 +1,72 @@
+package com.inventory.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-product counts of optimistic write attempts, version conflicts and give-ups, to find hot SKUs
+public class ContentionMetrics {
+    public static final class Counters {
+        private final int productId;
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+
+        private Counters(int productId) {
+            this.productId = productId;
+        }
+
+        public int getProductId() { return productId; }
+        public long getAttempts() { return attempts.sum(); }
+        public long getConflicts() { return conflicts.sum(); }
+        // Writes that still conflicted after the last retry
+        public long getExhausted() { return exhausted.sum(); }
+
+        public double getConflictRate() {
+            long n = attempts.sum();
+            return n == 0 ? 0.0 : conflicts.sum() / (double) n;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("#%d: attempts=%d, conflicts=%d (%.1f%%), exhausted=%d",
+                productId, getAttempts(), getConflicts(), getConflictRate() * 100, getExhausted());
+        }
+    }
+
+    private final Map<Integer, Counters> counters = new ConcurrentHashMap<>();
+
+    void recordAttempt(int productId) {
+        counters(productId).attempts.increment();
+    }
+
+    void recordConflict(int productId) {
+        counters(productId).conflicts.increment();
+    }
+
+    void recordExhausted(int productId) {
+        counters(productId).exhausted.increment();
+    }
+
+    public Counters get(int productId) {
+        return counters.get(productId);
+    }
+
+    // The products with the most conflicts, highest first
+    public List<Counters> getMostContended(int limit) {
+        List<Counters> all = new ArrayList<>(counters.values());
+        all.removeIf(c -> c.getConflicts() == 0);
+        all.sort((a, b) -> Long.compare(b.getConflicts(), a.getConflicts()));
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    private Counters counters(int productId) {
+        return counters.computeIfAbsent(productId, Counters::new);
+    }
+}
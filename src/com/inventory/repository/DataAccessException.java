@@ -0,0 +1,11 @@
+package com.inventory.repository;
+
+// Thrown where a SQLException cannot be reported through a return value,
+// e.g. while a lazily populated Stream is being consumed
+public class DataAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
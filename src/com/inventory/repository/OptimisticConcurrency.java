@@ -0,0 +1,35 @@
+package com.inventory.repository;
+
+import com.inventory.db.ConnectionProvider;
+import java.sql.*;
+
+// Settings for version-checked stock writes, shared by the product and order repositories.
+// Every stock write bumps products.version; writers that read a row and then update it only
+// succeed if the version is unchanged, and otherwise retry under the policy.
+public class OptimisticConcurrency {
+    private final RetryPolicy retryPolicy;
+    private final ContentionMetrics metrics = new ContentionMetrics();
+
+    public OptimisticConcurrency(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public ContentionMetrics getMetrics() {
+        return metrics;
+    }
+
+    // products.version is added by SchemaMigrations; without it writers have to lock rows
+    public static boolean hasVersionColumn(ConnectionProvider connections) {
+        try (Connection conn = connections.getConnection();
+             ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, "products", "version")) {
+            return rs.next();
+        } catch (SQLException e) {
+            System.err.println("Could not check for products.version: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,165 +1,373 @@
 package com.inventory.repository;
 
-import com.inventory.db.DatabaseConnection;
+import com.inventory.db.ConnectionManager;
+import com.inventory.db.ConnectionProvider;
 import com.inventory.model.OrderData;
+import com.inventory.model.OrderResult;
+import com.inventory.service.event.InventoryEvent;
+import com.inventory.service.event.OrderCreated;
+import com.inventory.service.event.StockChanged;
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class OrderRepository {
-    
-    public Map<String, Map<String, Object>> getDetailedSalesData() {
-        Map<String, Map<String, Object>> salesData = new HashMap<>();
-        
-        String query = 
-            "SELECT p.description, " +
-            "COALESCE(SUM(oi.quantity), 0) as total_quantity, " +
-            "COALESCE(SUM(oi.quantity * p.price), 0) as total_revenue, " +
-            "COUNT(DISTINCT oi.order_id) as order_count " +  // Changed from customer_id to order_id
-            "FROM products p " +
-            "LEFT JOIN order_items oi ON p.id = oi.product_id " +
-            "LEFT JOIN orders o ON oi.order_id = o.id " +
-            "GROUP BY p.description";
-            
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                Map<String, Object> data = new HashMap<>();
-                data.put("quantity", rs.getInt("total_quantity"));
-                data.put("revenue", rs.getDouble("total_revenue"));
-                data.put("orders", rs.getString("order_count"));
-                
-                salesData.put(rs.getString("description"), data);
-            }
-            
-            if (salesData.isEmpty()) {
-                Map<String, Object> dummyData = new HashMap<>();
-                dummyData.put("quantity", 0);
-                dummyData.put("revenue", 0.0);
-                dummyData.put("orders", "0");
-                salesData.put("No sales data available", dummyData);
+    private final ConnectionProvider connections;
+    // Null when the outbox is disabled
+    private final OutboxRepository outbox;
+    // Null for row-locking order placement
+    private final OptimisticConcurrency concurrency;
+    // Null to compute sales figures from the full order history on every read
+    private final SalesRollupRepository rollups;
+
+    public OrderRepository() {
+        this(ConnectionManager.getInstance());
+    }
+
+    public OrderRepository(ConnectionProvider connections) {
+        this(connections, null, null, null);
+    }
+
+    public OrderRepository(ConnectionProvider connections, OutboxRepository outbox,
+                           OptimisticConcurrency concurrency, SalesRollupRepository rollups) {
+        this.connections = connections;
+        this.outbox = outbox;
+        this.concurrency = concurrency;
+        this.rollups = rollups;
+    }
+
+    // Totals for a date range, product filter and trend granularity. Order lines are aggregated
+    // in a single pass over a streamed result set, so multi-year ranges run in bounded memory.
+    // All-time monthly figures without a filter come straight from the rollup tables when present.
+    public SalesSummary summarizeSales(SalesQuery query) {
+        SalesAccumulator totals = new SalesAccumulator(query.getGranularity(), ZoneId.systemDefault());
+        try (Connection conn = connections.getConnection()) {
+            if (rollups != null && query.isAllTime() && !query.hasProductFilter()
+                    && query.getGranularity() == SalesQuery.Granularity.MONTH) {
+                readRollups(conn, totals);
+            } else {
+                scanOrderLines(conn, query, totals);
             }
         } catch (SQLException e) {
-            e.printStackTrace();
-            Map<String, Object> errorData = new HashMap<>();
-            errorData.put("quantity", 0);
-            errorData.put("revenue", 0.0);
-            errorData.put("orders", "Error");
-            salesData.put("Database error occurred", errorData);
-        }
-        
-        return salesData;
-    }
-
-    public Map<String, Double> getMonthlyTrend() {
-        Map<String, Double> monthlyTrend = new LinkedHashMap<>();
-        
-        String query = 
-            "SELECT DATE_FORMAT(o.order_date, '%Y-%m') as month, " +
-            "COALESCE(SUM(oi.quantity * p.price), 0) as monthly_revenue " +
+            throw new DataAccessException("Could not summarize sales for " + query.describe(), e);
+        }
+        return totals.finish(query);
+    }
+
+    private void scanOrderLines(Connection conn, SalesQuery query, SalesAccumulator totals) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+            "SELECT oi.order_id, o.order_date, oi.product_id, oi.quantity, oi.unit_price " +
             "FROM orders o " +
             "JOIN order_items oi ON o.id = oi.order_id " +
-            "JOIN products p ON oi.product_id = p.id " +
-            "GROUP BY month " +
-            "ORDER BY month DESC " +
-            "LIMIT 6";
-            
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                monthlyTrend.put(
-                    rs.getString("month"),
-                    rs.getDouble("monthly_revenue")
-                );
-            }
-            
-            if (monthlyTrend.isEmpty()) {
-                // Just add current month with 0 if no data
-                monthlyTrend.put(new java.text.SimpleDateFormat("yyyy-MM")
-                    .format(new java.util.Date()), 0.0);
+            "JOIN products p ON oi.product_id = p.id WHERE 1 = 1");
+        if (query.getFrom() != null) {
+            sql.append(" AND o.order_date >= ?");
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND o.order_date < ?");
+        }
+        if (query.hasProductFilter()) {
+            sql.append(" AND p.description LIKE ?");
+        }
+        // Keeps each order's lines together so orders can be counted without remembering ids
+        sql.append(" ORDER BY o.id");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(ProductRepository.STREAMING_FETCH_SIZE);
+            int index = 1;
+            if (query.getFrom() != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(query.getFrom().atStartOfDay()));
+            }
+            if (query.getTo() != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(query.getTo().atStartOfDay()));
+            }
+            if (query.hasProductFilter()) {
+                stmt.setString(index, query.likePattern());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.addLine(rs.getLong(1), rs.getTimestamp(2).getTime(), rs.getInt(3), rs.getInt(4),
+                        rs.getDouble(5));
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            monthlyTrend.put("Error", 0.0);
         }
-        
-        return monthlyTrend;
     }
 
+    private void readRollups(Connection conn, SalesAccumulator totals) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT product_id, quantity, revenue, order_count FROM sales_product_totals WHERE quantity > 0")) {
+                while (rs.next()) {
+                    totals.addProductTotals(rs.getInt(1), rs.getLong(2), rs.getDouble(3), rs.getLong(4));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT month, revenue, order_count FROM sales_monthly_revenue")) {
+                while (rs.next()) {
+                    totals.addBucket(LocalDate.parse(rs.getString(1) + "-01"), rs.getDouble(2), rs.getLong(3));
+                }
+            }
+        }
+    }
 
     public boolean createOrder(OrderData orderData) {
-        String orderSql = "INSERT INTO orders (order_date) VALUES (?)";
-        // Remove price from SQL as it's not in the table
-        String itemsSql = "INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)";
-        String updateStockSql = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
-        
+        return placeOrder(orderData).isSuccess();
+    }
+
+    // Persists an order in a fixed number of round trips regardless of its line count:
+    // lock and check stock, insert the order, decrement all stock in one statement,
+    // insert all lines as one batch, commit.
+    public OrderResult placeOrder(OrderData orderData) {
+        return placeOrders(Collections.singletonList(orderData)).get(0);
+    }
+
+    // Group commit: places several orders in one transaction with the same round trips as a
+    // single order. Orders are checked in list order against the stock left by the ones before
+    // them, so each is accepted or rejected exactly as if they had been placed one by one.
+    // Results are returned in the same order as the input.
+    public List<OrderResult> placeOrders(List<OrderData> orders) {
+        OrderResult[] validated = new OrderResult[orders.size()];
+        Set<Integer> productIds = new TreeSet<>();
+        for (int i = 0; i < orders.size(); i++) {
+            validated[i] = validate(orders.get(i));
+            if (validated[i] == null) {
+                productIds.addAll(orders.get(i).getItems().keySet());
+            }
+        }
+        if (productIds.isEmpty()) {
+            return Arrays.asList(validated);
+        }
+
+        int attempt = 1;
+        while (true) {
+            OrderResult[] results = validated.clone();
+            Set<Integer> conflicts;
+            try {
+                conflicts = tryPlaceOrders(orders, productIds, results);
+            } catch (SQLException e) {
+                return placeIndividually(orders, validated, e);
+            }
+            if (conflicts == null) {
+                return Arrays.asList(results);
+            }
+            RetryPolicy policy = concurrency.getRetryPolicy();
+            if (policy.canRetry(attempt) && policy.backoff(attempt)) {
+                attempt++;
+                continue;
+            }
+            // Hot products: give up cleanly on the orders that touch them instead of queueing
+            // behind each other, and place the rest without them
+            for (int productId : conflicts) {
+                concurrency.getMetrics().recordExhausted(productId);
+            }
+            productIds.clear();
+            for (int i = 0; i < validated.length; i++) {
+                if (validated[i] != null) {
+                    continue;
+                }
+                Set<Integer> items = orders.get(i).getItems().keySet();
+                // No ids means a deadlock, which does not say which orders were to blame
+                if (conflicts.isEmpty() || !Collections.disjoint(items, conflicts)) {
+                    validated[i] = OrderResult.failed("Stock is being changed by other orders, please try again");
+                } else {
+                    productIds.addAll(items);
+                }
+            }
+            if (productIds.isEmpty()) {
+                return Arrays.asList(validated);
+            }
+            attempt = 1;
+        }
+    }
+
+    // A batch failed with an error that retrying will not fix, probably caused by one of its
+    // orders. Places each order in its own transaction so only the culprit fails.
+    private List<OrderResult> placeIndividually(List<OrderData> orders, OrderResult[] validated, SQLException cause) {
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < validated.length; i++) {
+            if (validated[i] == null) {
+                pending.add(i);
+            }
+        }
+        OrderResult[] results = validated.clone();
+        if (pending.size() == 1) {
+            cause.printStackTrace();
+            results[pending.get(0)] = OrderResult.failed("Database error: " + cause.getMessage());
+            return Arrays.asList(results);
+        }
+        for (int i : pending) {
+            results[i] = placeOrder(orders.get(i));
+        }
+        return Arrays.asList(results);
+    }
+
+    // One attempt at placing the batch. Fills in results and returns null when finished, or
+    // returns the conflicting product ids (possibly none, for a deadlock) when it should be
+    // retried. Other database errors are thrown with nothing committed.
+    private Set<Integer> tryPlaceOrders(List<OrderData> orders, Set<Integer> productIds, OrderResult[] results)
+            throws SQLException {
+        boolean optimistic = concurrency != null;
+        Connection conn = null;
+        try {
+            conn = connections.getConnection();
+            conn.setAutoCommit(false);
+
+            // Optimistic: plain read of levels and versions, checked again by the decrement.
+            // Otherwise lock every product touched by the batch in one query, in id order.
+            Map<Integer, Long> versions = optimistic ? new HashMap<>() : null;
+            Map<Integer, BigDecimal> prices = new HashMap<>();
+            Map<Integer, Integer> remaining = findStockLevels(conn, productIds, !optimistic, versions, prices);
+            if (optimistic) {
+                for (int productId : productIds) {
+                    concurrency.getMetrics().recordAttempt(productId);
+                }
+            }
+            List<Integer> accepted = new ArrayList<>();
+            Map<Integer, Integer> totals = new LinkedHashMap<>();
+            List<InventoryEvent> stockEvents = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                if (results[i] != null) {
+                    continue;
+                }
+                Map<Integer, Integer> items = orders.get(i).getItems();
+                Map<Integer, Integer> shortages = findShortages(items, remaining);
+                if (!shortages.isEmpty()) {
+                    results[i] = OrderResult.rejected(shortages);
+                    continue;
+                }
+                for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                    int level = remaining.merge(item.getKey(), -item.getValue(), Integer::sum);
+                    totals.merge(item.getKey(), item.getValue(), Integer::sum);
+                    stockEvents.add(new StockChanged(item.getKey(), -item.getValue(), level));
+                }
+                accepted.add(i);
+            }
+            if (accepted.isEmpty()) {
+                conn.rollback();
+                return null;
+            }
+
+            Timestamp orderDate = new Timestamp(System.currentTimeMillis());
+            int[] orderIds = insertOrders(conn, orderDate, accepted.size());
+            if (orderIds == null) {
+                conn.rollback();
+                failAccepted(results, accepted, "Order id was not generated");
+                return null;
+            }
+
+            // One conditional decrement for the combined quantities of the whole batch
+            if (decrementStock(conn, totals, versions) != totals.size()) {
+                conn.rollback();
+                if (optimistic) {
+                    // Another writer got in between the read and the decrement
+                    Set<Integer> conflicts = findChangedVersions(conn, versions);
+                    for (int productId : conflicts) {
+                        concurrency.getMetrics().recordConflict(productId);
+                    }
+                    return conflicts;
+                }
+                // Cannot normally happen with the rows locked, but never oversell
+                failAccepted(results, accepted, "Stock changed concurrently");
+                return null;
+            }
+
+            Map<Integer, Map<Integer, Integer>> lines = new LinkedHashMap<>();
+            for (int k = 0; k < accepted.size(); k++) {
+                lines.put(orderIds[k], orders.get(accepted.get(k)).getItems());
+            }
+            insertOrderItems(conn, lines, prices);
+            recordSales(conn, orderDate, lines.values(), prices);
+
+            if (outbox != null) {
+                List<InventoryEvent> events = new ArrayList<>(lines.size() + stockEvents.size());
+                for (Map.Entry<Integer, Map<Integer, Integer>> order : lines.entrySet()) {
+                    events.add(new OrderCreated(order.getKey(), order.getValue()));
+                }
+                events.addAll(stockEvents);
+                outbox.append(conn, events);
+            }
+
+            conn.commit();
+            for (int k = 0; k < accepted.size(); k++) {
+                results[accepted.get(k)] = OrderResult.success(orderIds[k]);
+            }
+            return null;
+
+        } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            if (optimistic && RetryPolicy.isTransient(e)) {
+                return Collections.emptySet();
+            }
+            throw e;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Writes the order and its lines without touching stock, for callers that have already
+    // reserved the stock elsewhere (the in-memory stock ledger). newLevels holds the level each
+    // product was left at by that reservation, for the outbox's stock events.
+    public OrderResult recordOrder(OrderData orderData, Map<Integer, Integer> newLevels) {
+        Map<Integer, Integer> items = orderData.getItems();
+        if (items.isEmpty()) {
+            return OrderResult.failed("Cannot create an empty order");
+        }
+
         Connection conn = null;
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = connections.getConnection();
             conn.setAutoCommit(false);
-            
-            // First, validate stock for all items
-            for (Map.Entry<Integer, Integer> item : orderData.getItems().entrySet()) {
-                int productId = item.getKey();
-                int quantity = item.getValue();
-                
-                PreparedStatement stockStmt = conn.prepareStatement("SELECT stock FROM products WHERE id = ?");
-                stockStmt.setInt(1, productId);
-                ResultSet stockRs = stockStmt.executeQuery();
-                
-                if (!stockRs.next() || stockRs.getInt("stock") < quantity) {
-                    conn.rollback();
-                    return false;
-                }
-            }
-            
-            // Create order
-            PreparedStatement orderStmt = conn.prepareStatement(orderSql, Statement.RETURN_GENERATED_KEYS);
-            orderStmt.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
-            orderStmt.executeUpdate();
-            
-            // Get generated order ID
-            ResultSet rs = orderStmt.getGeneratedKeys();
-            if (!rs.next()) {
+
+            Timestamp orderDate = new Timestamp(System.currentTimeMillis());
+            int[] orderIds = insertOrders(conn, orderDate, 1);
+            if (orderIds == null) {
                 conn.rollback();
-                return false;
-            }
-            int orderId = rs.getInt(1);
-            
-            // Insert order items and update stock
-            PreparedStatement itemsStmt = conn.prepareStatement(itemsSql);
-            PreparedStatement updateStockStmt = conn.prepareStatement(updateStockSql);
-            
-            for (Map.Entry<Integer, Integer> item : orderData.getItems().entrySet()) {
-                int productId = item.getKey();
-                int quantity = item.getValue();
-                
-                // Update stock
-                updateStockStmt.setInt(1, quantity);
-                updateStockStmt.setInt(2, productId);
-                updateStockStmt.setInt(3, quantity);
-                int updatedRows = updateStockStmt.executeUpdate();
-                
-                if (updatedRows == 0) {
-                    conn.rollback();
-                    return false;
-                }
-                
-                // Add order item - removed price parameter
-                itemsStmt.setInt(1, orderId);
-                itemsStmt.setInt(2, productId);
-                itemsStmt.setInt(3, quantity);
-                itemsStmt.executeUpdate();
-            }
-            
+                return OrderResult.failed("Order id was not generated");
+            }
+            int orderId = orderIds[0];
+            // The stock was checked elsewhere, but the lines still record the price paid
+            Map<Integer, BigDecimal> prices = new HashMap<>();
+            findStockLevels(conn, items.keySet(), false, null, prices);
+            if (!prices.keySet().containsAll(items.keySet())) {
+                conn.rollback();
+                return OrderResult.failed("Order contains an unknown product");
+            }
+            insertOrderItems(conn, Collections.singletonMap(orderId, items), prices);
+            recordSales(conn, orderDate, Collections.singletonList(items), prices);
+            if (outbox != null) {
+                List<InventoryEvent> events = new ArrayList<>(items.size() + 1);
+                events.add(new OrderCreated(orderId, items));
+                for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                    events.add(new StockChanged(item.getKey(), -item.getValue(), newLevels.get(item.getKey())));
+                }
+                outbox.append(conn, events);
+            }
+
             conn.commit();
-            return true;
-            
+            return OrderResult.success(orderId);
+
         } catch (SQLException e) {
             try {
                 if (conn != null) conn.rollback();
@@ -167,7 +375,7 @@ public class OrderRepository {
                 ex.printStackTrace();
             }
             e.printStackTrace();
-            return false;
+            return OrderResult.failed("Database error: " + e.getMessage());
         } finally {
             try {
                 if (conn != null) {
@@ -179,4 +387,166 @@ public class OrderRepository {
             }
         }
     }
+
+    // Returns a failure for orders that can be rejected without touching the database, else null
+    private static OrderResult validate(OrderData orderData) {
+        if (orderData == null || orderData.getItems().isEmpty()) {
+            return OrderResult.failed("Cannot create an empty order");
+        }
+        for (int quantity : orderData.getItems().values()) {
+            if (quantity <= 0) {
+                return OrderResult.failed("Order quantities must be positive");
+            }
+        }
+        return null;
+    }
+
+    private static void failAccepted(OrderResult[] results, List<Integer> accepted, String message) {
+        for (int i : accepted) {
+            results[i] = OrderResult.failed(message);
+        }
+    }
+
+    // Inserts count order rows and returns their generated ids, or null if the driver did not
+    // return one per row
+    private int[] insertOrders(Connection conn, Timestamp orderDate, int count) throws SQLException {
+        String orderSql = "INSERT INTO orders (order_date) VALUES (?)";
+        try (PreparedStatement orderStmt = conn.prepareStatement(orderSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < count; i++) {
+                orderStmt.setTimestamp(1, orderDate);
+                orderStmt.addBatch();
+            }
+            orderStmt.executeBatch();
+            int[] ids = new int[count];
+            int n = 0;
+            try (ResultSet rs = orderStmt.getGeneratedKeys()) {
+                while (rs.next() && n < count) {
+                    ids[n++] = rs.getInt(1);
+                }
+            }
+            return n == count ? ids : null;
+        }
+    }
+
+    // order id -> (product id -> quantity); each line records the product's price at this moment
+    private void insertOrderItems(Connection conn, Map<Integer, Map<Integer, Integer>> orders,
+                                  Map<Integer, BigDecimal> prices) throws SQLException {
+        String itemsSql = "INSERT INTO order_items (order_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+        // With rewriteBatchedStatements the driver sends this as one multi-row INSERT
+        try (PreparedStatement itemsStmt = conn.prepareStatement(itemsSql)) {
+            for (Map.Entry<Integer, Map<Integer, Integer>> order : orders.entrySet()) {
+                for (Map.Entry<Integer, Integer> item : order.getValue().entrySet()) {
+                    itemsStmt.setInt(1, order.getKey());
+                    itemsStmt.setInt(2, item.getKey());
+                    itemsStmt.setInt(3, item.getValue());
+                    itemsStmt.setBigDecimal(4, prices.get(item.getKey()));
+                    itemsStmt.addBatch();
+                }
+            }
+            itemsStmt.executeBatch();
+        }
+    }
+
+    // Keeps the sales rollups in step with the orders inserted in this transaction
+    private void recordSales(Connection conn, Timestamp orderDate, Collection<Map<Integer, Integer>> orders,
+                             Map<Integer, BigDecimal> prices) throws SQLException {
+        if (rollups == null) {
+            return;
+        }
+        Map<Integer, Integer> quantities = new HashMap<>();
+        Map<Integer, Integer> orderCounts = new HashMap<>();
+        for (Map<Integer, Integer> items : orders) {
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                quantities.merge(item.getKey(), item.getValue(), Integer::sum);
+                orderCounts.merge(item.getKey(), 1, Integer::sum);
+            }
+        }
+        Map<Integer, BigDecimal> revenues = new HashMap<>();
+        quantities.forEach((id, qty) -> revenues.put(id, prices.get(id).multiply(BigDecimal.valueOf(qty))));
+        String month = orderDate.toLocalDateTime().toLocalDate().toString().substring(0, 7);
+        rollups.record(conn, month, orders.size(), quantities, revenues, orderCounts);
+    }
+
+    // Lines that cannot be fulfilled: product id -> available stock (0 for unknown products)
+    private static Map<Integer, Integer> findShortages(Map<Integer, Integer> items, Map<Integer, Integer> stockLevels) {
+        Map<Integer, Integer> shortages = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+            Integer stock = stockLevels.get(item.getKey());
+            if (stock == null || stock < item.getValue()) {
+                shortages.put(item.getKey(), stock == null ? 0 : stock);
+            }
+        }
+        return shortages;
+    }
+
+    // Set-based conditional decrement: joins products against a derived table of
+    // (id, qty) pairs and returns the number of rows that had enough stock. With versions
+    // given, a row is only updated if its version is still the one that was read.
+    private int decrementStock(Connection conn, Map<Integer, Integer> items, Map<Integer, Long> versions)
+            throws SQLException {
+        int updated = 0;
+        for (List<Integer> chunk : SqlUtils.chunk(items.keySet(), SqlUtils.MAX_IN_LIST)) {
+            String sql = versions == null
+                ? "UPDATE products p JOIN (" + SqlUtils.derivedTable(chunk.size(), "id", "qty") + ") d "
+                    + "ON p.id = d.id SET p.stock = p.stock - d.qty WHERE p.stock >= d.qty"
+                : "UPDATE products p JOIN (" + SqlUtils.derivedTable(chunk.size(), "id", "qty", "ver") + ") d "
+                    + "ON p.id = d.id SET p.stock = p.stock - d.qty, p.version = p.version + 1 "
+                    + "WHERE p.version = d.ver AND p.stock >= d.qty";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int index = 1;
+                for (int productId : chunk) {
+                    stmt.setInt(index++, productId);
+                    stmt.setInt(index++, items.get(productId));
+                    if (versions != null) {
+                        stmt.setLong(index++, versions.get(productId));
+                    }
+                }
+                updated += stmt.executeUpdate();
+            }
+        }
+        return updated;
+    }
+
+    // Products whose version no longer matches the one read earlier
+    private Set<Integer> findChangedVersions(Connection conn, Map<Integer, Long> versions) throws SQLException {
+        Map<Integer, Long> current = new HashMap<>();
+        findStockLevels(conn, versions.keySet(), false, current, null);
+        Set<Integer> changed = new TreeSet<>();
+        for (Map.Entry<Integer, Long> entry : versions.entrySet()) {
+            if (!entry.getValue().equals(current.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    // Fills versions with each row's version when given (optimistic mode), and prices with
+    // each row's price when given
+    private Map<Integer, Integer> findStockLevels(Connection conn, Collection<Integer> productIds, boolean lock,
+                                                  Map<Integer, Long> versions, Map<Integer, BigDecimal> prices)
+            throws SQLException {
+        Map<Integer, Integer> stockLevels = new HashMap<>();
+        String columns = "id, stock" + (versions != null ? ", version" : "") + (prices != null ? ", price" : "");
+        for (List<Integer> chunk : SqlUtils.chunk(productIds, SqlUtils.MAX_IN_LIST)) {
+            String query = "SELECT " + columns + " FROM products WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")"
+                + (lock ? " FOR UPDATE" : "");
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        stockLevels.put(rs.getInt("id"), rs.getInt("stock"));
+                        if (versions != null) {
+                            versions.put(rs.getInt("id"), rs.getLong("version"));
+                        }
+                        if (prices != null) {
+                            prices.put(rs.getInt("id"), rs.getBigDecimal("price"));
+                        }
+                    }
+                }
+            }
+        }
+        return stockLevels;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.inventory.repository;
+
+import com.inventory.service.event.EventCodec;
+import com.inventory.service.event.InventoryEvent;
+
+// One row of the outbox table. Ids only ever increase, so a consumer's progress is the last id it handled.
+public class OutboxRecord {
+    private final long id;
+    private final String type;
+    private final String payload;
+    private final long createdAt;
+
+    public OutboxRecord(long id, String type, String payload, long createdAt) {
+        this.id = id;
+        this.type = type;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() { return id; }
+    public String getType() { return type; }
+    public String getPayload() { return payload; }
+    public long getCreatedAt() { return createdAt; }
+
+    public InventoryEvent toEvent() {
+        return EventCodec.decode(type, payload, createdAt);
+    }
+}
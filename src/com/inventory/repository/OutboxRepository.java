@@ -0,0 +1,145 @@
+package com.inventory.repository;
+
+import com.inventory.db.ConnectionProvider;
+import com.inventory.service.event.EventCodec;
+import com.inventory.service.event.InventoryEvent;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Transactional outbox: events are inserted with the caller's connection, so they commit or
+// roll back together with the change they describe. OutboxRelay reads them back in id order
+// and records how far each named consumer has got in outbox_offsets.
+public class OutboxRepository {
+    private final ConnectionProvider connections;
+
+    public OutboxRepository(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+
+    public void createTables() throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS outbox_events ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "event_type VARCHAR(64) NOT NULL, "
+                + "payload TEXT NOT NULL, "
+                + "created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3))");
+            stmt.execute("CREATE TABLE IF NOT EXISTS outbox_offsets ("
+                + "consumer VARCHAR(100) PRIMARY KEY, "
+                + "last_event_id BIGINT NOT NULL, "
+                + "updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3))");
+        }
+    }
+
+    // Must be called inside the transaction that made the change
+    public void append(Connection conn, InventoryEvent event) throws SQLException {
+        append(conn, List.of(event));
+    }
+
+    public void append(Connection conn, Collection<? extends InventoryEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO outbox_events (event_type, payload, created_at) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (InventoryEvent event : events) {
+                stmt.setString(1, EventCodec.typeOf(event));
+                stmt.setString(2, EventCodec.encode(event));
+                stmt.setTimestamp(3, new Timestamp(event.getTimestamp()));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    public List<OutboxRecord> findAfter(long afterId, int limit) throws SQLException {
+        String query = "SELECT id, event_type, payload, created_at FROM outbox_events WHERE id > ? ORDER BY id LIMIT ?";
+        List<OutboxRecord> records = new ArrayList<>();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(new OutboxRecord(rs.getLong("id"), rs.getString("event_type"),
+                        rs.getString("payload"), rs.getTimestamp("created_at").getTime()));
+                }
+            }
+        }
+        return records;
+    }
+
+    // Last event id the consumer has processed, 0 if it has never run
+    public long getOffset(String consumer) throws SQLException {
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT last_event_id FROM outbox_offsets WHERE consumer = ?")) {
+            stmt.setString(1, consumer);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    public void saveOffset(String consumer, long lastEventId) throws SQLException {
+        // GREATEST keeps the offset from moving backwards if two relays ever overlap
+        String sql = "INSERT INTO outbox_offsets (consumer, last_event_id) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE last_event_id = GREATEST(last_event_id, VALUES(last_event_id))";
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, consumer);
+            stmt.setLong(2, lastEventId);
+            stmt.executeUpdate();
+        }
+    }
+
+    // Removes events every consumer has processed: the registered ones, and every other one
+    // with a saved offset, which may register again later and must resume where it left off.
+    // Returns the number deleted.
+    public int purgeConsumed(Collection<String> registered) throws SQLException {
+        long minOffset = Long.MAX_VALUE;
+        for (String consumer : registered) {
+            // 0 for one that has not saved an offset yet, which keeps everything
+            minOffset = Math.min(minOffset, getOffset(consumer));
+        }
+        try (Connection conn = connections.getConnection()) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(last_event_id) FROM outbox_offsets")) {
+                if (rs.next()) {
+                    long saved = rs.getLong(1);
+                    if (!rs.wasNull()) {
+                        minOffset = Math.min(minOffset, saved);
+                    }
+                }
+            }
+            if (minOffset == Long.MAX_VALUE) {
+                return 0;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM outbox_events WHERE id <= ?")) {
+                stmt.setLong(1, minOffset);
+                return stmt.executeUpdate();
+            }
+        }
+    }
+
+    // Whether any consumer has ever saved an offset
+    public boolean hasOffsets() throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM outbox_offsets LIMIT 1")) {
+            return rs.next();
+        }
+    }
+
+    // Removes events created before the cutoff whether or not anyone has read them; used when
+    // no consumer has ever saved an offset to say what has been processed
+    public int purgeOlderThan(long cutoffMillis) throws SQLException {
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM outbox_events WHERE created_at < ?")) {
+            stmt.setTimestamp(1, new Timestamp(cutoffMillis));
+            return stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.inventory.repository;
+
+import com.inventory.model.Product;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded, id-indexed product cache with a secondary description index.
+// Cached Product instances are never mutated in place; updates replace the entry.
+public class ProductCache {
+    public enum EvictionPolicy {
+        LRU, LFU;
+
+        public static EvictionPolicy fromString(String text) {
+            for (EvictionPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(text)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("Unknown eviction policy: " + text);
+        }
+    }
+
+    private static final class Entry {
+        private final int id;
+        private Product product;
+        private long frequency;
+        private long lastAccess;
+
+        private Entry(int id) {
+            this.id = id;
+        }
+    }
+
+    private final int maxSize;
+    private final EvictionPolicy policy;
+    // Sorted by id so snapshots and keyset pages come out in id order without sorting
+    private final NavigableMap<Integer, Entry> entries = new TreeMap<>();
+    private final Map<String, Set<Integer>> byDescription = new HashMap<>();
+    // Ordered so that first() is always the next eviction victim
+    private final TreeSet<Entry> evictionOrder;
+    private long tick;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ProductCache(int maxSize, EvictionPolicy policy) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        this.maxSize = maxSize;
+        this.policy = policy;
+        Comparator<Entry> byRecency = Comparator.comparingLong(e -> e.lastAccess);
+        Comparator<Entry> order = policy == EvictionPolicy.LFU
+            ? Comparator.<Entry>comparingLong(e -> e.frequency).thenComparing(byRecency)
+            : byRecency;
+        this.evictionOrder = new TreeSet<>(order.thenComparingInt(e -> e.id));
+    }
+
+    public synchronized Product get(int productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        touch(entry);
+        return entry.product;
+    }
+
+    // Looks up an entry without counting it as a hit or refreshing its eviction rank
+    public synchronized Product peek(int productId) {
+        Entry entry = entries.get(productId);
+        return entry == null ? null : entry.product;
+    }
+
+    public synchronized List<Product> getByDescription(String description) {
+        Set<Integer> ids = byDescription.get(normalize(description));
+        List<Product> products = new ArrayList<>();
+        if (ids != null) {
+            for (int id : ids) {
+                Entry entry = entries.get(id);
+                touch(entry);
+                products.add(entry.product);
+            }
+        }
+        return products;
+    }
+
+    // Returns true if inserting this product evicted another one
+    public synchronized boolean put(Product product) {
+        Entry entry = entries.get(product.getId());
+        if (entry != null) {
+            unindex(entry.product);
+            entry.product = product;
+            index(product);
+            touch(entry);
+            return false;
+        }
+
+        // Make room first so a brand-new entry is never its own victim under LFU
+        boolean evicted = false;
+        if (entries.size() >= maxSize) {
+            Entry victim = evictionOrder.pollFirst();
+            entries.remove(victim.id);
+            unindex(victim.product);
+            evictions.increment();
+            evicted = true;
+        }
+
+        entry = new Entry(product.getId());
+        entry.product = product;
+        entries.put(entry.id, entry);
+        index(product);
+        entry.lastAccess = ++tick;
+        evictionOrder.add(entry);
+        return evicted;
+    }
+
+    // Replaces every cached entry; returns false if the catalog did not fit and some were evicted
+    public synchronized boolean replaceAll(Collection<Product> products) {
+        clear();
+        boolean evicted = false;
+        for (Product product : products) {
+            evicted |= put(product);
+        }
+        return !evicted;
+    }
+
+    // Patches the stock level of a cached product; returns false if it was not cached
+    public synchronized boolean updateStock(int productId, int newStock) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            return false;
+        }
+        Product old = entry.product;
+        entry.product = new Product(old.getId(), old.getDescription(), old.getPrice(), newStock);
+        return true;
+    }
+
+    public synchronized void invalidate(int productId) {
+        Entry entry = entries.remove(productId);
+        if (entry != null) {
+            evictionOrder.remove(entry);
+            unindex(entry.product);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        byDescription.clear();
+        evictionOrder.clear();
+    }
+
+    // All cached products ordered by id
+    public synchronized List<Product> snapshot() {
+        List<Product> products = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            products.add(entry.product);
+        }
+        return products;
+    }
+
+    // Up to limit cached products with ids above afterId, ordered by id
+    public synchronized List<Product> pageAfter(int afterId, int limit) {
+        List<Product> products = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : entries.tailMap(afterId, false).values()) {
+            if (products.size() >= limit) {
+                break;
+            }
+            products.add(entry.product);
+        }
+        return products;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public EvictionPolicy getPolicy() { return policy; }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+
+    void recordHit() { hits.increment(); }
+    void recordMiss() { misses.increment(); }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProductCache[%s, size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRatio=%.1f%%]",
+            policy, size(), maxSize, getHitCount(), getMissCount(), getEvictionCount(), getHitRatio() * 100);
+    }
+
+    private void touch(Entry entry) {
+        evictionOrder.remove(entry);
+        entry.frequency++;
+        entry.lastAccess = ++tick;
+        evictionOrder.add(entry);
+    }
+
+    private void index(Product product) {
+        byDescription.computeIfAbsent(normalize(product.getDescription()), k -> new LinkedHashSet<>())
+            .add(product.getId());
+    }
+
+    private void unindex(Product product) {
+        String key = normalize(product.getDescription());
+        Set<Integer> ids = byDescription.get(key);
+        if (ids != null) {
+            ids.remove(product.getId());
+            if (ids.isEmpty()) {
+                byDescription.remove(key);
+            }
+        }
+    }
+
+    private static String normalize(String description) {
+        return description == null ? "" : description.trim().toLowerCase(Locale.ROOT);
+    }
+}
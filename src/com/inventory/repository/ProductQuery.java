@@ -0,0 +1,59 @@
+package com.inventory.repository;
+
+import com.inventory.model.Product;
+
+// Sort and filter criteria for server-side product listing
+public class ProductQuery {
+    public enum SortColumn {
+        ID("id"),
+        DESCRIPTION("description"),
+        PRICE("price"),
+        STOCK("stock");
+
+        private final String column;
+
+        SortColumn(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        Object valueOf(Product product) {
+            switch (this) {
+                case DESCRIPTION: return product.getDescription();
+                case PRICE: return product.getPrice();
+                case STOCK: return product.getStock();
+                default: return product.getId();
+            }
+        }
+    }
+
+    private final SortColumn sortColumn;
+    private final boolean ascending;
+    private final String filter;
+
+    public ProductQuery(SortColumn sortColumn, boolean ascending, String filter) {
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        this.filter = filter == null ? "" : filter.trim();
+    }
+
+    public static ProductQuery all() {
+        return new ProductQuery(SortColumn.ID, true, "");
+    }
+
+    public SortColumn getSortColumn() { return sortColumn; }
+    public boolean isAscending() { return ascending; }
+    public String getFilter() { return filter; }
+
+    public boolean hasFilter() {
+        return !filter.isEmpty();
+    }
+
+    // Substring match on the description with LIKE wildcards in the user's text escaped
+    String likePattern() {
+        return SqlUtils.likePattern(filter);
+    }
+}
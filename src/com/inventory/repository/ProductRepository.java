@@ -1,17 +1,54 @@
 package com.inventory.repository;
 
-import com.inventory.db.DatabaseConnection;
+import com.inventory.db.ConnectionManager;
+import com.inventory.db.ConnectionProvider;
 import com.inventory.model.Product;
+import com.inventory.service.event.ProductAdded;
+import com.inventory.service.event.StockChanged;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ProductRepository {
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    // Connector/J streams rows one at a time for this fetch size instead of buffering the result
+    public static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final ConnectionProvider connections;
+    // Null when the outbox is disabled
+    private final OutboxRepository outbox;
+    // Null for row-locking stock updates
+    private final OptimisticConcurrency concurrency;
+
+    public ProductRepository() {
+        this(ConnectionManager.getInstance());
+    }
+
+    public ProductRepository(ConnectionProvider connections) {
+        this(connections, null, null);
+    }
+
+    public ProductRepository(ConnectionProvider connections, OutboxRepository outbox,
+                             OptimisticConcurrency concurrency) {
+        this.connections = connections;
+        this.outbox = outbox;
+        this.concurrency = concurrency;
+    }
+
     public List<Product> findAll() {
         List<Product> products = new ArrayList<>();
         String query = "SELECT * FROM products";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = connections.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query);
              ResultSet rs = stmt.executeQuery()) {
                 
@@ -30,10 +67,171 @@ public class ProductRepository {
         return products;
     }
 
+    // Keyset pagination: the page of products whose id follows afterId (use 0 for the first page).
+    // Unlike OFFSET, every page costs the same no matter how deep into the catalog it is.
+    public List<Product> findPage(int afterId, int pageSize) {
+        List<Product> products = new ArrayList<>(pageSize);
+        String query = "SELECT * FROM products WHERE id > ? ORDER BY id LIMIT ?";
+
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapProduct(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return products;
+    }
+
+    // Throws DataAccessException rather than answering 0, so an outage is not shown as an
+    // empty catalog
+    public int count(ProductQuery query) {
+        String sql = "SELECT COUNT(*) FROM products" + (query.hasFilter() ? " WHERE description LIKE ?" : "");
+
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (query.hasFilter()) {
+                stmt.setString(1, query.likePattern());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not count products", e);
+        }
+    }
+
+    // Sorted and filtered page for table views. When the last row of the previous page is
+    // known the page is located with a keyset seek on (sort column, id); otherwise it falls
+    // back to OFFSET, which is only needed when jumping straight into the middle of the list.
+    // Throws DataAccessException, since an empty page would look like the end of the list.
+    public List<Product> findPage(ProductQuery query, Product after, int offset, int limit) {
+        String column = query.getSortColumn().getColumn();
+        String direction = query.isAscending() ? "ASC" : "DESC";
+        String comparison = query.isAscending() ? ">" : "<";
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM products");
+        List<Object> params = new ArrayList<>();
+        String conjunction = " WHERE ";
+        if (query.hasFilter()) {
+            sql.append(conjunction).append("description LIKE ?");
+            params.add(query.likePattern());
+            conjunction = " AND ";
+        }
+        if (after != null) {
+            if (query.getSortColumn() == ProductQuery.SortColumn.ID) {
+                sql.append(conjunction).append("id ").append(comparison).append(" ?");
+            } else {
+                Object key = query.getSortColumn().valueOf(after);
+                sql.append(conjunction).append("(").append(column).append(' ').append(comparison).append(" ? OR (")
+                   .append(column).append(" = ? AND id ").append(comparison).append(" ?))");
+                params.add(key);
+                params.add(key);
+            }
+            params.add(after.getId());
+        }
+        sql.append(" ORDER BY ").append(column).append(' ').append(direction);
+        if (query.getSortColumn() != ProductQuery.SortColumn.ID) {
+            sql.append(", id ").append(direction);
+        }
+        sql.append(" LIMIT ?");
+        params.add(limit);
+        if (after == null && offset > 0) {
+            sql.append(" OFFSET ?");
+            params.add(offset);
+        }
+
+        List<Product> products = new ArrayList<>(limit);
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapProduct(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not load a page of products", e);
+        }
+        return products;
+    }
+
+    // Calls the consumer with one page at a time until the catalog is exhausted
+    public void forEachPage(int pageSize, Consumer<List<Product>> consumer) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        int afterId = 0;
+        List<Product> page;
+        do {
+            page = findPage(afterId, pageSize);
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    // Lazily streams the whole catalog in id order over a forward-only result set.
+    // The stream holds a connection until it is closed, so always use try-with-resources.
+    public Stream<Product> streamAll() {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = connections.getConnection();
+            stmt = conn.prepareStatement("SELECT * FROM products ORDER BY id",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAMING_FETCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+
+            Spliterator<Product> rows = new Spliterators.AbstractSpliterator<Product>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Product> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapProduct(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new DataAccessException("Failed while streaming products", e);
+                    }
+                }
+            };
+
+            Connection owned = conn;
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try {
+                    owned.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            });
+        } catch (SQLException e) {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw new DataAccessException("Could not open product stream", e);
+        }
+    }
+
     public boolean save(Product product) {
         String query = "INSERT INTO products (description, price, stock) VALUES (?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = connections.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
                 
             stmt.setString(1, product.getDescription());
@@ -50,7 +248,7 @@ public class ProductRepository {
     public Product findById(int productId) {
         String query = "SELECT * FROM products WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = connections.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
                 
             stmt.setInt(1, productId);
@@ -70,35 +268,261 @@ public class ProductRepository {
         return null;
     }
     
+    // Fetches many products in one round trip per MAX_IN_LIST ids; unknown ids are simply absent
+    public Map<Integer, Product> findByIds(Collection<Integer> productIds) {
+        Map<Integer, Product> products = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return products;
+        }
+
+        try (Connection conn = connections.getConnection()) {
+            for (List<Integer> chunk : SqlUtils.chunk(new LinkedHashSet<>(productIds), SqlUtils.MAX_IN_LIST)) {
+                String query = "SELECT * FROM products WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Product product = mapProduct(rs);
+                            products.put(product.getId(), product);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return products;
+    }
+
+    public List<Product> findByDescription(String description) {
+        List<Product> products = new ArrayList<>();
+        String query = "SELECT * FROM products WHERE description = ?";
+
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setString(1, description);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapProduct(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return products;
+    }
+
     public boolean updateStock(int productId, int quantity) {
+        return adjustStock(productId, quantity) >= 0;
+    }
+
+    // Applies a relative stock change and returns the resulting level, or -1 if the product
+    // does not exist or the change would take stock below zero
+    public int adjustStock(int productId, int quantity) {
+        return concurrency != null ? adjustStockOptimistic(productId, quantity) : adjustStockLocked(productId, quantity);
+    }
+
+    // Read the row, then update it only if its version is unchanged; retried with backoff on conflict
+    private int adjustStockOptimistic(int productId, int quantity) {
+        RetryPolicy policy = concurrency.getRetryPolicy();
+        ContentionMetrics metrics = concurrency.getMetrics();
+        for (int attempt = 1; ; attempt++) {
+            metrics.recordAttempt(productId);
+            Connection conn = null;
+            try {
+                conn = connections.getConnection();
+                conn.setAutoCommit(false);
+
+                int stock;
+                long version;
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT stock, version FROM products WHERE id = ?")) {
+                    stmt.setInt(1, productId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return -1;
+                        }
+                        stock = rs.getInt(1);
+                        version = rs.getLong(2);
+                    }
+                }
+                int newLevel = stock + quantity;
+                if (newLevel < 0) {
+                    conn.rollback();
+                    return -1;
+                }
+
+                // Relative update plus stock guard, so even a writer that forgot to bump the
+                // version cannot be overwritten or drive stock negative
+                String update = "UPDATE products SET stock = stock + ?, version = version + 1 "
+                    + "WHERE id = ? AND version = ? AND (stock + ?) >= 0";
+                try (PreparedStatement stmt = conn.prepareStatement(update)) {
+                    stmt.setInt(1, quantity);
+                    stmt.setInt(2, productId);
+                    stmt.setLong(3, version);
+                    stmt.setInt(4, quantity);
+                    if (stmt.executeUpdate() == 1) {
+                        if (outbox != null) {
+                            outbox.append(conn, new StockChanged(productId, quantity, newLevel));
+                        }
+                        conn.commit();
+                        return newLevel;
+                    }
+                }
+                conn.rollback();
+                metrics.recordConflict(productId);
+            } catch (SQLException e) {
+                try {
+                    if (conn != null) conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+                if (!RetryPolicy.isTransient(e)) {
+                    e.printStackTrace();
+                    return -1;
+                }
+                metrics.recordConflict(productId);
+            } finally {
+                try {
+                    if (conn != null) {
+                        conn.setAutoCommit(true);
+                        conn.close();
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+
+            if (!policy.canRetry(attempt) || !policy.backoff(attempt)) {
+                metrics.recordExhausted(productId);
+                return -1;
+            }
+        }
+    }
+
+    private int adjustStockLocked(int productId, int quantity) {
         String query = "UPDATE products SET stock = stock + ? WHERE id = ? AND (stock + ?) >= 0";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setInt(1, quantity);
-            stmt.setInt(2, productId);
-            stmt.setInt(3, quantity);
-            
-            return stmt.executeUpdate() > 0;
+        Connection conn = null;
+        try {
+            conn = connections.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setInt(1, quantity);
+                stmt.setInt(2, productId);
+                stmt.setInt(3, quantity);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return -1;
+                }
+            }
+
+            // Read back inside the same transaction so the level is exactly the one we produced
+            int newLevel;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT stock FROM products WHERE id = ?")) {
+                stmt.setInt(1, productId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    newLevel = rs.next() ? rs.getInt(1) : -1;
+                }
+            }
+            if (outbox != null) {
+                outbox.append(conn, new StockChanged(productId, quantity, newLevel));
+            }
+            conn.commit();
+            return newLevel;
         } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
             e.printStackTrace();
-            return false;
+            return -1;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
 
     public boolean addProduct(String description, double price, int stock) {
+        return insertProduct(description, price, stock) > 0;
+    }
+
+    // Returns the generated product id, or -1 on failure
+    public int insertProduct(String description, double price, int stock) {
         String query = "INSERT INTO products (description, price, stock) VALUES (?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setString(1, description);
-            stmt.setDouble(2, price);
-            stmt.setInt(3, stock);
-            
-            return stmt.executeUpdate() > 0;
+        Connection conn = null;
+        try {
+            conn = connections.getConnection();
+            conn.setAutoCommit(false);
+
+            int productId;
+            try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, description);
+                stmt.setDouble(2, price);
+                stmt.setInt(3, stock);
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        conn.rollback();
+                        return -1;
+                    }
+                    productId = keys.getInt(1);
+                }
+            }
+            if (outbox != null) {
+                outbox.append(conn, new ProductAdded(new Product(productId, description, price, stock)));
+            }
+            conn.commit();
+            return productId;
         } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
             e.printStackTrace();
-            return false;
+            return -1;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
+
+    private static Product mapProduct(ResultSet rs) throws SQLException {
+        return new Product(
+            rs.getInt("id"),
+            rs.getString("description"),
+            rs.getDouble("price"),
+            rs.getInt("stock")
+        );
+    }
+
+    // Null unless optimistic concurrency is enabled
+    public ContentionMetrics getContentionMetrics() {
+        return concurrency == null ? null : concurrency.getMetrics();
+    }
+
+    // Called when product rows were changed behind this repository's back (e.g. by an order).
+    // The plain repository always reads through, so there is nothing to drop.
+    public void invalidate(Collection<Integer> productIds) {
+    }
+
+    public void invalidateAll() {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.inventory.repository;
+
+// Sales totals for one product
+public class ProductSales {
+    private final int productId;
+    private final long quantity;
+    private final double revenue;
+    private final long orderCount;
+
+    public ProductSales(int productId, long quantity, double revenue, long orderCount) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.orderCount = orderCount;
+    }
+
+    public int getProductId() { return productId; }
+    public long getQuantity() { return quantity; }
+    public double getRevenue() { return revenue; }
+    public long getOrderCount() { return orderCount; }
+}
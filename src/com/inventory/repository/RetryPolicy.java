@@ -0,0 +1,56 @@
+package com.inventory.repository;
+
+import com.inventory.config.Configuration;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Bounded exponential backoff with full jitter, so writers that collided on the same row
+// spread out instead of colliding again in lockstep
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = Math.max(0, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+    }
+
+    public static RetryPolicy fromConfiguration(Configuration config) {
+        return new RetryPolicy(
+            config.getInt("stock.retry.maxAttempts", 5),
+            config.getLong("stock.retry.initialBackoffMillis", 2),
+            config.getLong("stock.retry.maxBackoffMillis", 100));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    // attempt is 1-based: true if another try may follow a failed attempt
+    public boolean canRetry(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    // Sleeps before the next attempt; returns false if interrupted, in which case the caller should give up
+    public boolean backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Deadlocks and lock wait timeouts: the transaction was rolled back and can simply be run again
+    public static boolean isTransient(SQLException e) {
+        return "40001".equals(e.getSQLState()) || e.getErrorCode() == 1213 || e.getErrorCode() == 1205;
+    }
+}
@@ -0,0 +1,185 @@
+package com.inventory.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+// Folds order lines into per-product and per-bucket totals in one pass. Everything is kept in
+// growable primitive arrays behind small open-addressing indexes, so memory depends on the
+// number of products and buckets, never on the number of rows scanned.
+final class SalesAccumulator {
+    private final SalesQuery.Granularity granularity;
+    private final ZoneId zone;
+
+    private final IntIndex products = new IntIndex();
+    private long[] quantities = new long[64];
+    private double[] revenue = new double[64];
+    private long[] orderCounts = new long[64];
+
+    // Keyed by the epoch day the bucket starts on
+    private final IntIndex buckets = new IntIndex();
+    private double[] bucketRevenue = new double[64];
+    private long[] bucketOrders = new long[64];
+
+    private long totalOrders;
+    private long lastOrderId = Long.MIN_VALUE;
+    // Time range of the previous line's bucket; lines arrive in order id order, which is
+    // close to date order, so most lines land in the same bucket as the one before
+    private long bucketFromMillis = Long.MAX_VALUE;
+    private long bucketToMillis = Long.MIN_VALUE;
+    private int bucket;
+
+    SalesAccumulator(SalesQuery.Granularity granularity, ZoneId zone) {
+        this.granularity = granularity;
+        this.zone = zone;
+    }
+
+    // One order_items row; lines of the same order must arrive together
+    void addLine(long orderId, long orderTimeMillis, int productId, int quantity, double price) {
+        boolean newOrder = orderId != lastOrderId;
+        if (newOrder) {
+            lastOrderId = orderId;
+            totalOrders++;
+        }
+        int b = bucketFor(orderTimeMillis);
+        int p = productIndex(productId);
+        double lineRevenue = quantity * price;
+
+        quantities[p] += quantity;
+        revenue[p] += lineRevenue;
+        orderCounts[p]++;
+        bucketRevenue[b] += lineRevenue;
+        if (newOrder) {
+            bucketOrders[b]++;
+        }
+    }
+
+    // Pre-aggregated input, e.g. from the sales rollup tables
+    void addProductTotals(int productId, long quantity, double productRevenue, long orders) {
+        int p = productIndex(productId);
+        quantities[p] += quantity;
+        revenue[p] += productRevenue;
+        orderCounts[p] += orders;
+    }
+
+    void addBucket(LocalDate date, double revenueInBucket, long orders) {
+        int b = bucketIndex(granularity.bucketStart(date));
+        bucketRevenue[b] += revenueInBucket;
+        bucketOrders[b] += orders;
+        totalOrders += orders;
+    }
+
+    SalesSummary finish(SalesQuery query) {
+        int productCount = products.size();
+
+        // Buckets are created in arrival order; sort them by start day, carrying the index along
+        int bucketCount = buckets.size();
+        long[] order = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            order[i] = ((long) buckets.keyAt(i) << 32) | i;
+        }
+        Arrays.sort(order);
+        LocalDate[] starts = new LocalDate[bucketCount];
+        double[] sortedRevenue = new double[bucketCount];
+        long[] sortedOrders = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            int index = (int) order[i];
+            starts[i] = LocalDate.ofEpochDay(order[i] >> 32);
+            sortedRevenue[i] = bucketRevenue[index];
+            sortedOrders[i] = bucketOrders[index];
+        }
+
+        SalesTable table = new SalesTable(products.keys(), Arrays.copyOf(quantities, productCount),
+            Arrays.copyOf(revenue, productCount), Arrays.copyOf(orderCounts, productCount));
+        return new SalesSummary(query, table, starts, sortedRevenue, sortedOrders, totalOrders);
+    }
+
+    private int bucketFor(long millis) {
+        if (millis >= bucketFromMillis && millis < bucketToMillis) {
+            return bucket;
+        }
+        LocalDate start = granularity.bucketStart(Instant.ofEpochMilli(millis).atZone(zone).toLocalDate());
+        bucketFromMillis = start.atStartOfDay(zone).toInstant().toEpochMilli();
+        bucketToMillis = granularity.nextBucket(start).atStartOfDay(zone).toInstant().toEpochMilli();
+        bucket = bucketIndex(start);
+        return bucket;
+    }
+
+    private int bucketIndex(LocalDate start) {
+        int index = buckets.indexOf((int) start.toEpochDay());
+        if (index == bucketRevenue.length) {
+            bucketRevenue = Arrays.copyOf(bucketRevenue, index * 2);
+            bucketOrders = Arrays.copyOf(bucketOrders, index * 2);
+        }
+        return index;
+    }
+
+    private int productIndex(int productId) {
+        int index = products.indexOf(productId);
+        if (index == quantities.length) {
+            quantities = Arrays.copyOf(quantities, index * 2);
+            revenue = Arrays.copyOf(revenue, index * 2);
+            orderCounts = Arrays.copyOf(orderCounts, index * 2);
+        }
+        return index;
+    }
+
+    // int key -> dense index in insertion order, without boxing
+    private static final class IntIndex {
+        private int[] table = new int[128];   // dense index + 1, 0 for an empty slot
+        private int[] keys = new int[64];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int keyAt(int index) {
+            return keys[index];
+        }
+
+        int[] keys() {
+            return Arrays.copyOf(keys, size);
+        }
+
+        // Returns the key's index, assigning the next one if the key is new
+        int indexOf(int key) {
+            int mask = table.length - 1;
+            int slot = hash(key) & mask;
+            while (table[slot] != 0) {
+                if (keys[table[slot] - 1] == key) {
+                    return table[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size] = key;
+            table[slot] = ++size;
+            if (size * 2 > table.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        private void rehash() {
+            int[] grown = new int[table.length * 2];
+            int mask = grown.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = hash(keys[i]) & mask;
+                while (grown[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown[slot] = i + 1;
+            }
+            table = grown;
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.inventory.repository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Objects;
+
+// Date range, product filter and trend granularity for sales reports
+public class SalesQuery {
+    public enum Granularity {
+        DAY,
+        WEEK,
+        MONTH;
+
+        // First day of the bucket the date falls in; weeks start on Monday
+        public LocalDate bucketStart(LocalDate date) {
+            switch (this) {
+                case DAY: return date;
+                case WEEK: return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                default: return date.withDayOfMonth(1);
+            }
+        }
+
+        public LocalDate nextBucket(LocalDate bucketStart) {
+            switch (this) {
+                case DAY: return bucketStart.plusDays(1);
+                case WEEK: return bucketStart.plusWeeks(1);
+                default: return bucketStart.plusMonths(1);
+            }
+        }
+
+        public String label(LocalDate bucketStart) {
+            switch (this) {
+                case DAY: return bucketStart.toString();
+                case WEEK: return String.format("%d-W%02d",
+                    bucketStart.get(IsoFields.WEEK_BASED_YEAR), bucketStart.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                default: return bucketStart.toString().substring(0, 7);
+            }
+        }
+    }
+
+    // Both ends are optional; from is inclusive and to is exclusive
+    private final LocalDate from;
+    private final LocalDate to;
+    private final String productFilter;
+    private final Granularity granularity;
+
+    public SalesQuery(LocalDate from, LocalDate to, String productFilter, Granularity granularity) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Report range is empty: " + from + " to " + to);
+        }
+        this.from = from;
+        this.to = to;
+        this.productFilter = productFilter == null ? "" : productFilter.trim();
+        this.granularity = granularity == null ? Granularity.MONTH : granularity;
+    }
+
+    public static SalesQuery allTime() {
+        return new SalesQuery(null, null, "", Granularity.MONTH);
+    }
+
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public String getProductFilter() { return productFilter; }
+    public Granularity getGranularity() { return granularity; }
+
+    public boolean hasProductFilter() {
+        return !productFilter.isEmpty();
+    }
+
+    public boolean isAllTime() {
+        return from == null && to == null;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(from == null ? "beginning" : from.toString()).append(" to ")
+          .append(to == null ? "now" : to.minusDays(1).toString());
+        if (hasProductFilter()) {
+            sb.append(", products matching \"").append(productFilter).append('"');
+        }
+        return sb.append(", by ").append(granularity.name().toLowerCase()).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SalesQuery)) return false;
+        SalesQuery other = (SalesQuery) o;
+        return Objects.equals(from, other.from) && Objects.equals(to, other.to)
+            && productFilter.equals(other.productFilter) && granularity == other.granularity;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to, productFilter, granularity);
+    }
+
+    String likePattern() {
+        return SqlUtils.likePattern(productFilter);
+    }
+}
@@ -0,0 +1,240 @@
+package com.inventory.repository;
+
+import com.inventory.db.ConnectionProvider;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Pre-aggregated sales figures, so the sales report reads one row per product and one per month
+// instead of scanning every order. Product totals are kept up to date by the order transactions
+// themselves. Every order would also update the current month's row, which makes concurrent
+// commits queue on it, so with the outbox enabled the month rows are instead added up shortly
+// afterwards from OrderCreated events (see SalesRollupConsumer). Revenue is booked at the unit
+// price stored with each order line.
+public class SalesRollupRepository {
+    private final ConnectionProvider connections;
+    // True when the month rows are maintained from the outbox rather than by each order
+    private final boolean monthlyFromOutbox;
+
+    public SalesRollupRepository(ConnectionProvider connections) {
+        this(connections, false);
+    }
+
+    public SalesRollupRepository(ConnectionProvider connections, boolean monthlyFromOutbox) {
+        this.connections = connections;
+        this.monthlyFromOutbox = monthlyFromOutbox;
+    }
+
+    public boolean isMonthlyFromOutbox() {
+        return monthlyFromOutbox;
+    }
+
+    // Creates the tables, and fills them from the order history the first time. Returns true
+    // if it did so.
+    public boolean ensureBuilt() throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS sales_product_totals ("
+                + "product_id INT PRIMARY KEY, "
+                + "quantity BIGINT NOT NULL DEFAULT 0, "
+                + "revenue DECIMAL(19,2) NOT NULL DEFAULT 0, "
+                + "order_count BIGINT NOT NULL DEFAULT 0)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS sales_monthly_revenue ("
+                + "month CHAR(7) PRIMARY KEY, "
+                + "revenue DECIMAL(19,2) NOT NULL DEFAULT 0, "
+                + "order_count BIGINT NOT NULL DEFAULT 0)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS sales_rollup_state ("
+                + "id TINYINT PRIMARY KEY, "
+                + "rebuilt_at TIMESTAMP NOT NULL)");
+            // Last outbox event already counted in the month rows
+            stmt.execute("CREATE TABLE IF NOT EXISTS sales_monthly_state ("
+                + "id TINYINT PRIMARY KEY, "
+                + "last_event_id BIGINT NOT NULL)");
+            if (monthlyFromOutbox) {
+                // Orders placed before this existed were counted as they committed
+                stmt.execute("INSERT IGNORE INTO sales_monthly_state (id, last_event_id) "
+                    + "SELECT 1, COALESCE(MAX(id), 0) FROM outbox_events");
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sales_rollup_state WHERE id = 1")) {
+                if (rs.next()) {
+                    return false;
+                }
+            }
+        }
+        rebuild();
+        return true;
+    }
+
+    // Recomputes both tables from orders and order_items. Orders placed while this runs may be
+    // counted twice or not at all, so run it while the shop is quiet.
+    public void rebuild() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = connections.getConnection();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM sales_product_totals");
+                stmt.executeUpdate("DELETE FROM sales_monthly_revenue");
+                stmt.executeUpdate(
+                    "INSERT INTO sales_product_totals (product_id, quantity, revenue, order_count) " +
+                    "SELECT oi.product_id, SUM(oi.quantity), SUM(oi.quantity * oi.unit_price), COUNT(DISTINCT oi.order_id) " +
+                    "FROM order_items oi JOIN products p ON oi.product_id = p.id " +
+                    "GROUP BY oi.product_id");
+                stmt.executeUpdate(
+                    "INSERT INTO sales_monthly_revenue (month, revenue, order_count) " +
+                    "SELECT DATE_FORMAT(o.order_date, '%Y-%m'), SUM(oi.quantity * oi.unit_price), COUNT(DISTINCT o.id) " +
+                    "FROM orders o " +
+                    "JOIN order_items oi ON o.id = oi.order_id " +
+                    "JOIN products p ON oi.product_id = p.id " +
+                    "GROUP BY DATE_FORMAT(o.order_date, '%Y-%m')");
+                stmt.executeUpdate("REPLACE INTO sales_rollup_state (id, rebuilt_at) VALUES (1, CURRENT_TIMESTAMP)");
+                if (monthlyFromOutbox) {
+                    // Every order so far is in the rows just built
+                    stmt.executeUpdate("REPLACE INTO sales_monthly_state (id, last_event_id) "
+                        + "SELECT 1, COALESCE(MAX(id), 0) FROM outbox_events");
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Adds committed orders to the rollups; call inside the transaction that inserts them.
+    // quantities, revenues and orderCounts are per product id, for all orders in the month together.
+    void record(Connection conn, String month, int orders, Map<Integer, Integer> quantities,
+                Map<Integer, BigDecimal> revenues, Map<Integer, Integer> orderCounts) throws SQLException {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        BigDecimal monthRevenue = BigDecimal.ZERO;
+        for (List<Integer> chunk : SqlUtils.chunk(quantities.keySet(), SqlUtils.MAX_IN_LIST)) {
+            String sql = "INSERT INTO sales_product_totals (product_id, quantity, revenue, order_count) VALUES "
+                + rowPlaceholders(chunk.size()) + " "
+                + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), "
+                + "revenue = revenue + VALUES(revenue), order_count = order_count + VALUES(order_count)";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int index = 1;
+                for (int productId : chunk) {
+                    BigDecimal revenue = revenues.getOrDefault(productId, BigDecimal.ZERO);
+                    stmt.setInt(index++, productId);
+                    stmt.setInt(index++, quantities.get(productId));
+                    stmt.setBigDecimal(index++, revenue);
+                    stmt.setInt(index++, orderCounts.get(productId));
+                    monthRevenue = monthRevenue.add(revenue);
+                }
+                stmt.executeUpdate();
+            }
+        }
+
+        if (monthlyFromOutbox) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO sales_monthly_revenue (month, revenue, order_count) VALUES (?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), "
+                    + "order_count = order_count + VALUES(order_count)")) {
+            stmt.setString(1, month);
+            stmt.setBigDecimal(2, monthRevenue);
+            stmt.setInt(3, orders);
+            stmt.executeUpdate();
+        }
+    }
+
+    // Adds the given orders to the month rows, keyed by the id of the outbox event that
+    // announced each. Events at or below the recorded last_event_id are skipped, and the new
+    // last id is stored in the same transaction, so a batch the relay delivers twice is only
+    // counted once.
+    public void recordMonthly(SortedMap<Long, Integer> ordersByEventId) throws SQLException {
+        if (ordersByEventId.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        try {
+            conn = connections.getConnection();
+            conn.setAutoCommit(false);
+
+            long lastEventId;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(
+                     "SELECT last_event_id FROM sales_monthly_state WHERE id = 1 FOR UPDATE")) {
+                lastEventId = rs.next() ? rs.getLong(1) : 0;
+            }
+            List<Integer> orderIds = new ArrayList<>(ordersByEventId.tailMap(lastEventId + 1).values());
+            if (orderIds.isEmpty()) {
+                conn.rollback();
+                return;
+            }
+
+            for (List<Integer> chunk : SqlUtils.chunk(orderIds, SqlUtils.MAX_IN_LIST)) {
+                String sql = "INSERT INTO sales_monthly_revenue (month, revenue, order_count) "
+                    + "SELECT DATE_FORMAT(o.order_date, '%Y-%m'), SUM(oi.quantity * oi.unit_price), COUNT(DISTINCT o.id) "
+                    + "FROM orders o JOIN order_items oi ON o.id = oi.order_id "
+                    + "JOIN products p ON oi.product_id = p.id "
+                    + "WHERE o.id IN (" + SqlUtils.placeholders(chunk.size()) + ") "
+                    + "GROUP BY DATE_FORMAT(o.order_date, '%Y-%m') "
+                    + "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), "
+                    + "order_count = order_count + VALUES(order_count)";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    stmt.executeUpdate();
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "REPLACE INTO sales_monthly_state (id, last_event_id) VALUES (1, ?)")) {
+                stmt.setLong(1, ordersByEventId.lastKey());
+                stmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // "(?, ?, ?, ?), (?, ?, ?, ?) ..." for a multi-row insert of product totals
+    private static String rowPlaceholders(int rows) {
+        StringBuilder sb = new StringBuilder(rows * 14);
+        for (int i = 0; i < rows; i++) {
+            sb.append(i > 0 ? ", " : "").append("(?, ?, ?, ?)");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.inventory.repository;
+
+import java.time.LocalDate;
+
+// Sales totals for one SalesQuery: a SalesTable with one row per product that sold anything,
+// and one trend bucket per day, week or month in date order.
+public class SalesSummary {
+    private final SalesQuery query;
+    private final SalesTable products;
+    private final LocalDate[] bucketStarts;
+    private final double[] bucketRevenue;
+    private final long[] bucketOrders;
+    private final long totalOrders;
+
+    SalesSummary(SalesQuery query, SalesTable products, LocalDate[] bucketStarts, double[] bucketRevenue,
+                 long[] bucketOrders, long totalOrders) {
+        this.query = query;
+        this.products = products;
+        this.bucketStarts = bucketStarts;
+        this.bucketRevenue = bucketRevenue;
+        this.bucketOrders = bucketOrders;
+        this.totalOrders = totalOrders;
+    }
+
+    public SalesQuery getQuery() { return query; }
+    public SalesTable getProducts() { return products; }
+    public long getTotalOrders() { return totalOrders; }
+    public long getTotalQuantity() { return products.getTotalQuantity(); }
+    public double getTotalRevenue() { return products.getTotalRevenue(); }
+
+    public int getBucketCount() { return bucketStarts.length; }
+    public LocalDate getBucketStart(int index) { return bucketStarts[index]; }
+    public double getBucketRevenue(int index) { return bucketRevenue[index]; }
+    public long getBucketOrders(int index) { return bucketOrders[index]; }
+
+    public String getBucketLabel(int index) {
+        return query.getGranularity().label(bucketStarts[index]);
+    }
+}
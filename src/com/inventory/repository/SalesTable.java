@@ -0,0 +1,113 @@
+package com.inventory.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Per-product sales totals stored column by column in primitive arrays, one row per product.
+// Rows are only materialized as ProductSales objects when asked for, e.g. for the top N.
+public class SalesTable {
+    private final int[] productIds;
+    private final long[] quantities;
+    private final double[] revenue;
+    private final long[] orderCounts;
+    private final long totalQuantity;
+    private final double totalRevenue;
+
+    SalesTable(int[] productIds, long[] quantities, double[] revenue, long[] orderCounts) {
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.revenue = revenue;
+        this.orderCounts = orderCounts;
+
+        long units = 0;
+        double sum = 0.0;
+        for (int i = 0; i < productIds.length; i++) {
+            units += quantities[i];
+            sum += revenue[i];
+        }
+        this.totalQuantity = units;
+        this.totalRevenue = sum;
+    }
+
+    public int size() { return productIds.length; }
+    public int getProductId(int row) { return productIds[row]; }
+    public long getQuantity(int row) { return quantities[row]; }
+    public double getRevenue(int row) { return revenue[row]; }
+    public long getOrderCount(int row) { return orderCounts[row]; }
+    public long getTotalQuantity() { return totalQuantity; }
+    public double getTotalRevenue() { return totalRevenue; }
+
+    public ProductSales get(int row) {
+        return new ProductSales(productIds[row], quantities[row], revenue[row], orderCounts[row]);
+    }
+
+    // Highest revenue first, ties broken by product id. Keeps a min-heap of at most limit row
+    // numbers, so picking the top few of a large catalog costs O(rows * log limit) and no sort.
+    public List<ProductSales> topByRevenue(int limit) {
+        int capacity = Math.min(limit, productIds.length);
+        if (capacity <= 0) {
+            return Collections.emptyList();
+        }
+        // The weakest of the current top rows sits at heap[0]
+        int[] heap = new int[capacity];
+        int size = 0;
+        for (int row = 0; row < productIds.length; row++) {
+            if (size < capacity) {
+                heap[size] = row;
+                siftUp(heap, size++);
+            } else if (ranksAbove(row, heap[0])) {
+                heap[0] = row;
+                siftDown(heap, size);
+            }
+        }
+
+        ProductSales[] top = new ProductSales[size];
+        for (int i = size - 1; i >= 0; i--) {
+            top[i] = get(heap[0]);
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+        }
+        return Arrays.asList(top);
+    }
+
+    private boolean ranksAbove(int a, int b) {
+        if (revenue[a] != revenue[b]) {
+            return revenue[a] > revenue[b];
+        }
+        return productIds[a] < productIds[b];
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], row)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int index = 0;
+        int row = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksAbove(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!ranksAbove(row, heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+}
@@ -0,0 +1,117 @@
+package com.inventory.repository;
+
+import com.inventory.db.ConnectionProvider;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Changes to tables this application does not create itself, for databases set up by an earlier
+// version. Each migration runs once, in order, and is recorded in schema_migrations, so a normal
+// startup costs one query. Run on startup, or ahead of an upgrade with Main --migrate.
+public class SchemaMigrations {
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+        // Revenue is booked at the price an order was placed at, not the current one. Existing
+        // lines can only be given the price the product has now.
+        Migration.addColumn(1, "order_items", "unit_price", "DECIMAL(10,2) NULL",
+            "UPDATE order_items oi JOIN products p ON p.id = oi.product_id "
+                + "SET oi.unit_price = p.price WHERE oi.unit_price IS NULL"),
+        // Version-checked stock writes (stock.concurrency=optimistic)
+        Migration.addColumn(2, "products", "version", "BIGINT NOT NULL DEFAULT 0")
+    );
+
+    private final ConnectionProvider connections;
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final String table;
+        private final String column;
+        private final String definition;
+        private final String[] followUp;
+
+        private Migration(int version, String description, String table, String column, String definition,
+                          String[] followUp) {
+            this.version = version;
+            this.description = description;
+            this.table = table;
+            this.column = column;
+            this.definition = definition;
+            this.followUp = followUp;
+        }
+
+        // Skips the ALTER if the column is already there, e.g. added by hand
+        static Migration addColumn(int version, String table, String column, String definition, String... followUp) {
+            return new Migration(version, "Add " + table + "." + column, table, column, definition, followUp);
+        }
+
+        void apply(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                if (!columnExists(conn, table, column)) {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+                }
+                for (String sql : followUp) {
+                    stmt.executeUpdate(sql);
+                }
+            }
+        }
+    }
+
+    public SchemaMigrations(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+
+    // Applies every migration not recorded yet and returns how many ran
+    public int migrate() throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                    + "version INT PRIMARY KEY, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+            }
+            Set<Integer> applied = new HashSet<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT version FROM schema_migrations")) {
+                while (rs.next()) {
+                    applied.add(rs.getInt(1));
+                }
+            }
+
+            int count = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (applied.contains(migration.version)) {
+                    continue;
+                }
+                migration.apply(conn);
+                // IGNORE: another instance starting at the same time may have recorded it first
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT IGNORE INTO schema_migrations (version, description) VALUES (?, ?)")) {
+                    stmt.setInt(1, migration.version);
+                    stmt.setString(2, migration.description);
+                    stmt.executeUpdate();
+                }
+                System.out.println("Applied schema migration " + migration.version + ": " + migration.description);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    // Throws IllegalStateException if a column the application cannot run without is missing.
+    // products.version is not checked: stock writes fall back to row locks without it.
+    public void requireApplied() throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            if (!columnExists(conn, "order_items", "unit_price")) {
+                throw new IllegalStateException("order_items.unit_price is missing, run Main --migrate");
+            }
+        }
+    }
+
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
+            return rs.next();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.inventory.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+final class SqlUtils {
+    // Keeps IN-lists well below max_allowed_packet and the prepared statement placeholder limit
+    static final int MAX_IN_LIST = 1000;
+
+    private SqlUtils() {
+    }
+
+    // "?, ?, ?" for use inside an IN (...) clause
+    static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    // "SELECT ? AS id, ? AS qty UNION ALL SELECT ?, ? ..." for joining against a list of pairs
+    static String derivedIdQuantityTable(int rows) {
+        return derivedTable(rows, "id", "qty");
+    }
+
+    // Same for any number of columns: the first row names them, the rest are just placeholders
+    static String derivedTable(int rows, String... columns) {
+        StringBuilder first = new StringBuilder("SELECT ");
+        StringBuilder next = new StringBuilder(" UNION ALL SELECT ");
+        for (int c = 0; c < columns.length; c++) {
+            if (c > 0) {
+                first.append(", ");
+                next.append(", ");
+            }
+            first.append("? AS ").append(columns[c]);
+            next.append('?');
+        }
+        StringBuilder sb = new StringBuilder(first.length() + rows * next.length());
+        sb.append(first);
+        for (int i = 1; i < rows; i++) {
+            sb.append(next);
+        }
+        return sb.toString();
+    }
+
+    // Substring match for LIKE with the wildcards in the user's text escaped
+    static String likePattern(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('%');
+        for (char c : text.toCharArray()) {
+            if (c == '%' || c == '_' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.append('%').toString();
+    }
+
+    static List<List<Integer>> chunk(Collection<Integer> ids, int size) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        List<Integer> current = new ArrayList<>(Math.min(size, ids.size()));
+        for (Integer id : ids) {
+            current.add(id);
+            if (current.size() == size) {
+                chunks.add(current);
+                current = new ArrayList<>(size);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
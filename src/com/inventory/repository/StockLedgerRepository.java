@@ -0,0 +1,130 @@
+package com.inventory.repository;
+
+import com.inventory.db.ConnectionProvider;
+import java.sql.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Database side of the in-memory stock ledger. The ledger's write-behind flushes apply their
+// stock deltas and advance stock_ledger_state.flushed_seq in one transaction, so after a crash
+// the journal entries above flushed_seq are exactly the ones the database has not seen yet.
+public class StockLedgerRepository {
+    private final ConnectionProvider connections;
+    // Bump products.version on flush so optimistic writers notice the change
+    private final boolean versioned;
+
+    public StockLedgerRepository(ConnectionProvider connections) {
+        this(connections, false);
+    }
+
+    public StockLedgerRepository(ConnectionProvider connections, boolean versioned) {
+        this.connections = connections;
+        this.versioned = versioned;
+    }
+
+    public void createTables() throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS stock_ledger_state ("
+                + "id TINYINT PRIMARY KEY, "
+                + "flushed_seq BIGINT NOT NULL)");
+            stmt.execute("INSERT IGNORE INTO stock_ledger_state (id, flushed_seq) VALUES (1, 0)");
+        }
+    }
+
+    // Highest journal sequence number whose stock change is already in the products table
+    public long getFlushedSequence() throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT flushed_seq FROM stock_ledger_state WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    public Map<Integer, Integer> loadStockLevels() throws SQLException {
+        Map<Integer, Integer> levels = new HashMap<>();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT id, stock FROM products")) {
+            stmt.setFetchSize(ProductRepository.STREAMING_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    levels.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+        return levels;
+    }
+
+    public Map<Integer, Integer> findStockLevels(Collection<Integer> productIds) throws SQLException {
+        Map<Integer, Integer> levels = new HashMap<>();
+        try (Connection conn = connections.getConnection()) {
+            for (List<Integer> chunk : SqlUtils.chunk(productIds, SqlUtils.MAX_IN_LIST)) {
+                String query = "SELECT id, stock FROM products WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            levels.put(rs.getInt(1), rs.getInt(2));
+                        }
+                    }
+                }
+            }
+        }
+        return levels;
+    }
+
+    // Subtracts the given quantities (negative values add stock back) and records the journal
+    // sequence they cover. The ledger already checked availability, but a row changed outside it
+    // can hold less than the ledger thought, so stock is clamped at zero rather than going
+    // negative; the next reconciliation then corrects the ledger's counter.
+    public void applyDecrements(Map<Integer, Integer> decrements, long throughSeq) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = connections.getConnection();
+            conn.setAutoCommit(false);
+
+            for (List<Integer> chunk : SqlUtils.chunk(decrements.keySet(), SqlUtils.MAX_IN_LIST)) {
+                String sql = "UPDATE products p JOIN (" + SqlUtils.derivedIdQuantityTable(chunk.size()) + ") d "
+                    + "ON p.id = d.id SET p.stock = GREATEST(p.stock - d.qty, 0)" + (versioned ? ", p.version = p.version + 1" : "");
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (int productId : chunk) {
+                        stmt.setInt(index++, productId);
+                        stmt.setInt(index++, decrements.get(productId));
+                    }
+                    stmt.executeUpdate();
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE stock_ledger_state SET flushed_seq = ? WHERE id = 1 AND flushed_seq < ?")) {
+                stmt.setLong(1, throughSeq);
+                stmt.setLong(2, throughSeq);
+                stmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
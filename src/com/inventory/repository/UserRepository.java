@@ -1,14 +1,25 @@
 package com.inventory.repository;
 
-import com.inventory.db.DatabaseConnection;
+import com.inventory.db.ConnectionManager;
+import com.inventory.db.ConnectionProvider;
 import com.inventory.model.User;
 import com.inventory.model.UserRole;
 import java.sql.*;
 
 public class UserRepository {
+    private final ConnectionProvider connections;
+
+    public UserRepository() {
+        this(ConnectionManager.getInstance());
+    }
+
+    public UserRepository(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+
     public User findByUsername(String username) {
         String query = "SELECT * FROM users WHERE username = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = connections.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             
             stmt.setString(1, username);
@@ -30,7 +41,7 @@ public class UserRepository {
 
     public boolean validateCredentials(String username, String password) {
         String query = "SELECT * FROM users WHERE username = ? AND password = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = connections.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             
             stmt.setString(1, username);
@@ -46,7 +57,7 @@ public class UserRepository {
     
     public String getUserRole(String username) {
         String query = "SELECT role FROM users WHERE username = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = connections.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             
             stmt.setString(1, username);
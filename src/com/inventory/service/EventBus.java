@@ -0,0 +1,324 @@
+package com.inventory.service;
+
+import com.inventory.config.Configuration;
+import com.inventory.db.LatencyHistogram;
+import com.inventory.service.event.EventListener;
+import com.inventory.service.event.InventoryEvent;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Delivers events asynchronously. Every subscriber has its own bounded queue that is drained
+// by one task at a time on the shared executor, so a subscriber sees events in publish order
+// and a slow subscriber only ever holds up itself, never the publisher or other subscribers.
+public class EventBus {
+    // What publish() does when a subscriber's queue is full
+    public enum Backpressure {
+        // Discard the new event
+        DROP,
+        // Wait for space, at most blockTimeoutMillis, then discard
+        BLOCK,
+        // Merge into the newest pending event if it is for the same thing (e.g. stock of one
+        // product); otherwise discard the oldest pending event so the newest state wins
+        COALESCE;
+
+        public static Backpressure fromString(String text) {
+            for (Backpressure backpressure : values()) {
+                if (backpressure.name().equalsIgnoreCase(text == null ? null : text.trim())) {
+                    return backpressure;
+                }
+            }
+            throw new IllegalArgumentException("Unknown backpressure mode: " + text);
+        }
+    }
+
+    private final ExecutorService executor;
+    private final int queueCapacity;
+    private final Backpressure backpressure;
+    private final long blockTimeoutMillis;
+    // Copy-on-write: publishing iterates a snapshot and never contends with (un)subscribe
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final LatencyHistogram deliveryLag = new LatencyHistogram();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public EventBus(Configuration config) {
+        this(createExecutor(config),
+            config.getInt("events.queueCapacity", 1000),
+            Backpressure.fromString(config.getString("events.backpressure", "COALESCE")),
+            config.getLong("events.blockTimeoutMillis", 1000));
+    }
+
+    public EventBus(ExecutorService executor, int queueCapacity, Backpressure backpressure, long blockTimeoutMillis) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.backpressure = backpressure;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+    }
+
+    // Observers receive every event
+    public Subscription addObserver(Observer observer) {
+        return register(InventoryEvent.class, observer::update, observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        unregister(observer);
+    }
+
+    // Receives only events of the given type (or its subclasses)
+    public <E extends InventoryEvent> Subscription subscribe(Class<E> type, EventListener<? super E> listener) {
+        return register(type, event -> listener.onEvent(type.cast(event)), listener);
+    }
+
+    public void unsubscribe(EventListener<?> listener) {
+        unregister(listener);
+    }
+
+    // Returns immediately (unless a queue is full under BLOCK); delivery happens on the executor
+    public void publish(InventoryEvent event) {
+        published.increment();
+        long now = System.nanoTime();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.type.isInstance(event)) {
+                subscription.enqueue(event, now);
+            }
+        }
+    }
+
+    // Events waiting across all subscribers
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Subscription subscription : subscriptions) {
+            depth += subscription.getQueueDepth();
+        }
+        return depth;
+    }
+
+    public int getSubscriberCount() { return subscriptions.size(); }
+    // Time from publish() to the start of the subscriber's callback
+    public LatencyHistogram getDeliveryLag() { return deliveryLag; }
+    public long getPublishedCount() { return published.sum(); }
+    public long getDeliveredCount() { return delivered.sum(); }
+    public long getDroppedCount() { return dropped.sum(); }
+    public long getCoalescedCount() { return coalesced.sum(); }
+    public long getFailureCount() { return failures.sum(); }
+
+    // Stops delivery; events still queued are discarded
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EventBus[subscribers=%d, queued=%d, published=%d, delivered=%d, dropped=%d, "
+                + "coalesced=%d, failures=%d, lag: %s]",
+            getSubscriberCount(), getQueueDepth(), getPublishedCount(), getDeliveredCount(), getDroppedCount(),
+            getCoalescedCount(), getFailureCount(), deliveryLag);
+    }
+
+    private Subscription register(Class<? extends InventoryEvent> type, EventListener<InventoryEvent> callback,
+                                  Object owner) {
+        Subscription subscription = new Subscription(type, callback, owner);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    private void unregister(Object owner) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.owner == owner) {
+                subscriptions.remove(subscription);
+                subscription.close();
+            }
+        }
+    }
+
+    private static final class Envelope {
+        private InventoryEvent event;
+        private final long publishedAt;
+
+        private Envelope(InventoryEvent event, long publishedAt) {
+            this.event = event;
+            this.publishedAt = publishedAt;
+        }
+    }
+
+    public final class Subscription {
+        private final Class<? extends InventoryEvent> type;
+        private final EventListener<InventoryEvent> callback;
+        // The listener or observer passed in, used to find the subscription again on removal
+        private final Object owner;
+
+        // Guarded by lock
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private final ArrayDeque<Envelope> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        private Subscription(Class<? extends InventoryEvent> type, EventListener<InventoryEvent> callback,
+                             Object owner) {
+            this.type = type;
+            this.callback = callback;
+            this.owner = owner;
+        }
+
+        public int getQueueDepth() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void enqueue(InventoryEvent event, long publishedAt) {
+            boolean startDrain;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() >= queueCapacity && !makeRoom(event)) {
+                    return;
+                }
+                queue.addLast(new Envelope(event, publishedAt));
+                startDrain = !draining;
+                draining = true;
+            } finally {
+                lock.unlock();
+            }
+            if (startDrain) {
+                scheduleDrain();
+            }
+        }
+
+        // Called with the lock held and the queue full; returns false if the event was absorbed or discarded
+        private boolean makeRoom(InventoryEvent event) {
+            switch (backpressure) {
+                case BLOCK:
+                    try {
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+                        while (queue.size() >= queueCapacity && !closed) {
+                            if (remaining <= 0) {
+                                dropped.increment();
+                                return false;
+                            }
+                            remaining = notFull.awaitNanos(remaining);
+                        }
+                        return !closed;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.increment();
+                        return false;
+                    }
+                case COALESCE:
+                    // Only into the newest pending event: merging into an older one would deliver
+                    // this change ahead of the events queued after it. A burst of changes to the
+                    // same thing still keeps folding into one event.
+                    Envelope last = queue.peekLast();
+                    InventoryEvent merged = last.event.coalesce(event);
+                    if (merged != null) {
+                        last.event = merged;
+                        coalesced.increment();
+                        return false;
+                    }
+                    queue.pollFirst();
+                    dropped.increment();
+                    return true;
+                default:
+                    dropped.increment();
+                    return false;
+            }
+        }
+
+        private void scheduleDrain() {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Bus shut down
+                lock.lock();
+                try {
+                    dropped.add(queue.size());
+                    queue.clear();
+                    draining = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        // Runs until the queue is empty; only one drain per subscription is active at a time
+        private void drain() {
+            while (true) {
+                Envelope envelope;
+                lock.lock();
+                try {
+                    envelope = queue.pollFirst();
+                    if (envelope == null || closed) {
+                        queue.clear();
+                        draining = false;
+                        return;
+                    }
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+
+                deliveryLag.record(System.nanoTime() - envelope.publishedAt);
+                try {
+                    callback.onEvent(envelope.event);
+                    delivered.increment();
+                } catch (RuntimeException e) {
+                    // A failing subscriber must not stop delivery of later events
+                    failures.increment();
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                closed = true;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static ExecutorService createExecutor(Configuration config) {
+        if (config.getBoolean("events.virtualThreads", false)) {
+            try {
+                // Java 21+, looked up reflectively like the controller executor
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Virtual threads are not available on this JVM, using a thread pool for events");
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, config.getInt("events.threads", 2)), r -> {
+            Thread thread = new Thread(r, "inventory-events-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
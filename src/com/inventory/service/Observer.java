@@ -1,5 +1,7 @@
 package com.inventory.service;
 
+import com.inventory.service.event.InventoryEvent;
+
 public interface Observer {
-    void update(String message);
+    void update(InventoryEvent event);
 }
@@ -0,0 +1,172 @@
+package com.inventory.service;
+
+import com.inventory.config.Configuration;
+import com.inventory.model.OrderData;
+import com.inventory.model.OrderResult;
+import com.inventory.repository.OrderRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Group commit for order intake. Callers enqueue orders and get a future; a writer thread takes
+// whatever has queued up (up to maxBatchSize, waiting at most maxWaitMillis for more) and
+// places the whole batch in one transaction via OrderRepository.placeOrders. Under load many
+// terminals share one commit instead of each paying for its own.
+public class OrderIntakePipeline {
+    // How often an idle writer checks whether the pipeline is shutting down
+    private static final long IDLE_CHECK_MILLIS = 100;
+
+    private final OrderRepository orderRepo;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder orders = new LongAdder();
+
+    private static final class Pending {
+        private final OrderData order;
+        private final CompletableFuture<OrderResult> result = new CompletableFuture<>();
+
+        private Pending(OrderData order) {
+            this.order = order;
+        }
+    }
+
+    public OrderIntakePipeline(OrderRepository orderRepo, Configuration config) {
+        this(orderRepo,
+            config.getInt("orders.intake.maxBatchSize", 64),
+            config.getLong("orders.intake.maxWaitMillis", 2),
+            config.getInt("orders.intake.queueCapacity", 10_000),
+            config.getInt("orders.intake.writers", 1));
+    }
+
+    public OrderIntakePipeline(OrderRepository orderRepo, int maxBatchSize, long maxWaitMillis,
+                               int queueCapacity, int writerThreads) {
+        if (maxBatchSize < 1 || queueCapacity < 1 || writerThreads < 1) {
+            throw new IllegalArgumentException("Batch size, queue capacity and writer count must be positive");
+        }
+        this.orderRepo = orderRepo;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int i = 1; i <= writerThreads; i++) {
+            Thread writer = new Thread(this::writeLoop, "order-intake-" + i);
+            writer.setDaemon(true);
+            writers.add(writer);
+            writer.start();
+        }
+    }
+
+    public CompletableFuture<OrderResult> submit(OrderData order) {
+        Pending pending = new Pending(order);
+        if (!running) {
+            pending.result.complete(OrderResult.failed("Order intake is shut down"));
+        } else if (!queue.offer(pending)) {
+            pending.result.complete(OrderResult.failed("Too many orders queued, try again"));
+        } else if (!running && queue.remove(pending)) {
+            // Shut down between the check and the offer, possibly after close() drained the
+            // queue. If remove() fails a writer or close() has it and will complete it.
+            pending.result.complete(OrderResult.failed("Order intake is shut down"));
+        }
+        return pending.result;
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public long getBatchCount() { return batches.sum(); }
+    public long getOrderCount() { return orders.sum(); }
+
+    public double getAverageBatchSize() {
+        long n = batches.sum();
+        return n == 0 ? 0.0 : orders.sum() / (double) n;
+    }
+
+    // Orders already queued are still written; new ones are refused. Does not wait for the
+    // writers; see close().
+    public void shutdown() {
+        running = false;
+    }
+
+    // Shuts down and waits up to timeoutMillis for the queued orders to be written. Writers are
+    // not interrupted, so a batch that is being committed always finishes. Orders still queued
+    // after the timeout are failed rather than left waiting forever.
+    public void close(long timeoutMillis) {
+        shutdown();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            for (Thread writer : writers) {
+                writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.complete(OrderResult.failed("Order intake is shut down"));
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = running ? queue.poll(IDLE_CHECK_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // Adds whatever else is queued, waiting up to maxWait for the batch to fill
+    private void collect(List<Pending> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<OrderData> orderData = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            orderData.add(pending.order);
+        }
+        try {
+            List<OrderResult> results = orderRepo.placeOrders(orderData);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+        batches.increment();
+        orders.add(batch.size());
+    }
+}
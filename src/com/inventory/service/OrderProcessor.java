@@ -1,18 +1,32 @@
 package com.inventory.service;
 
 import com.inventory.model.OrderData;
+import com.inventory.model.OrderResult;
 import com.inventory.model.Product;
 import com.inventory.repository.ProductRepository;
 import com.inventory.repository.OrderRepository;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 public class OrderProcessor {
     private final ProductRepository productRepo;
     private final OrderRepository orderRepo;
+    // Null unless the in-memory stock ledger is enabled
+    private final StockLedger ledger;
+    // Null to give every order its own transaction
+    private final OrderIntakePipeline intake;
 
     public OrderProcessor(ProductRepository productRepo, OrderRepository orderRepo) {
+        this(productRepo, orderRepo, null, null);
+    }
+
+    public OrderProcessor(ProductRepository productRepo, OrderRepository orderRepo, StockLedger ledger,
+                          OrderIntakePipeline intake) {
         this.productRepo = productRepo;
         this.orderRepo = orderRepo;
+        this.ledger = ledger;
+        this.intake = intake;
     }
 
     public boolean validateOrder(OrderData orderData) {
@@ -20,16 +34,32 @@ public class OrderProcessor {
             return false;
         }
 
-        for (Map.Entry<Integer, Integer> entry : orderData.getItems().entrySet()) {
-            int productId = entry.getKey();
-            int requestedQuantity = entry.getValue();
-
+        for (int requestedQuantity : orderData.getItems().values()) {
             if (requestedQuantity <= 0) {
                 return false;
             }
+        }
 
-            Product product = productRepo.findById(productId);
-            if (product == null || product.getStock() < requestedQuantity) {
+        if (ledger != null) {
+            try {
+                ledger.loadMissing(orderData.getItems().keySet());
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+            for (Map.Entry<Integer, Integer> entry : orderData.getItems().entrySet()) {
+                if (ledger.getAvailable(entry.getKey()) < entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // One lookup for the whole order instead of one per line
+        Map<Integer, Product> products = productRepo.findByIds(orderData.getItems().keySet());
+        for (Map.Entry<Integer, Integer> entry : orderData.getItems().entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (product == null || product.getStock() < entry.getValue()) {
                 return false;
             }
         }
@@ -37,33 +67,55 @@ public class OrderProcessor {
     }
 
     public boolean processOrder(OrderData orderData) {
-        if (!validateOrder(orderData)) {
-            return false;
+        return placeOrder(orderData).isSuccess();
+    }
+
+    public OrderResult placeOrder(OrderData orderData) {
+        if (ledger == null) {
+            // Checks and decrements stock in the same transaction as the order insert,
+            // shared with other concurrent orders when the intake pipeline is on
+            return intake != null ? intake.submit(orderData).join() : orderRepo.placeOrder(orderData);
         }
 
-        // First update stock levels
-        for (Map.Entry<Integer, Integer> entry : orderData.getItems().entrySet()) {
-            int productId = entry.getKey();
-            int quantity = entry.getValue();
-            
-            if (!productRepo.updateStock(productId, -quantity)) {
-                rollbackStockUpdates(orderData, entry.getKey());
-                return false;
+        if (orderData == null || orderData.getItems().isEmpty()) {
+            return OrderResult.failed("Cannot create an empty order");
+        }
+        for (int quantity : orderData.getItems().values()) {
+            if (quantity <= 0) {
+                return OrderResult.failed("Order quantities must be positive");
             }
         }
 
-        // Then create order record
-        return orderRepo.createOrder(orderData);
-    }
+        // Reserve in memory, then record the order; the stock decrement reaches the
+        // products table with the ledger's next flush
+        Map<Integer, Integer> levels = new HashMap<>();
+        try {
+            Map<Integer, Integer> shortages = ledger.reserve(orderData.getItems(), levels);
+            if (!shortages.isEmpty()) {
+                return OrderResult.rejected(shortages);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return OrderResult.failed("Could not reserve stock: " + e.getMessage());
+        }
 
-    private void rollbackStockUpdates(OrderData orderData, int failedProductId) {
-        for (Map.Entry<Integer, Integer> entry : orderData.getItems().entrySet()) {
-            int productId = entry.getKey();
-            if (productId == failedProductId) {
-                break;
+        OrderResult result = orderRepo.recordOrder(orderData, levels);
+        if (!result.isSuccess()) {
+            try {
+                ledger.release(orderData.getItems());
+            } catch (IOException e) {
+                // The units stay taken and are written off with the next flush
+                e.printStackTrace();
             }
-            // Restore previous stock levels
-            productRepo.updateStock(productId, entry.getValue());
         }
+        return result;
+    }
+
+    public OrderIntakePipeline getIntake() {
+        return intake;
+    }
+
+    public StockLedger getLedger() {
+        return ledger;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package com.inventory.service;
+
+import com.inventory.repository.OutboxRecord;
+import java.util.List;
+
+// Downstream receiver of outbox events. Delivery is at-least-once: after a crash or a thrown
+// exception the same records are offered again, so implementations should be idempotent
+// (the record id is a natural deduplication key).
+@FunctionalInterface
+public interface OutboxConsumer {
+    void onBatch(List<OutboxRecord> records) throws Exception;
+}
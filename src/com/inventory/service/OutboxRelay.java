@@ -0,0 +1,141 @@
+package com.inventory.service;
+
+import com.inventory.config.Configuration;
+import com.inventory.repository.OutboxRecord;
+import com.inventory.repository.OutboxRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Polls the outbox table and hands new events to each registered consumer in batches.
+// A consumer's offset is only saved after its onBatch() returns, so events are never lost
+// but may be seen twice if the process dies in between. Events are purged once every consumer
+// with a saved offset has processed them, registered in this run or not; a consumer retired
+// for good must have its outbox_offsets row deleted. With no consumer at all, events are
+// kept for the retention window and then purged.
+public class OutboxRelay {
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+
+    private final OutboxRepository outbox;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final long gapTimeoutMillis;
+    private final boolean purgeConsumed;
+    private final long retentionMillis;
+    private long lastPurge;
+    private final Map<String, OutboxConsumer> consumers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public OutboxRelay(OutboxRepository outbox, Configuration config) {
+        this.outbox = outbox;
+        this.batchSize = Math.max(1, config.getInt("outbox.relay.batchSize", 500));
+        this.intervalMillis = Math.max(10, config.getLong("outbox.relay.intervalMillis", 1000));
+        this.gapTimeoutMillis = config.getLong("outbox.relay.gapTimeoutMillis", 10_000);
+        this.purgeConsumed = config.getBoolean("outbox.relay.purgeConsumed", true);
+        this.retentionMillis = TimeUnit.HOURS.toMillis(config.getLong("outbox.retentionHours", 168));
+    }
+
+    // A consumer that was registered before under the same name resumes from its saved offset
+    public void register(String name, OutboxConsumer consumer) {
+        consumers.put(name, consumer);
+    }
+
+    public void unregister(String name) {
+        consumers.remove(name);
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Consumers registering shortly after startup get a full purge interval to catch up
+        lastPurge = System.currentTimeMillis();
+        scheduler.scheduleWithFixedDelay(this::pollOnce, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // One relay pass over every consumer; each keeps going until it has caught up
+    public void pollOnce() {
+        for (Map.Entry<String, OutboxConsumer> entry : consumers.entrySet()) {
+            try {
+                while (relayBatch(entry.getKey(), entry.getValue())) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                // Offset not advanced; the same batch is retried on the next pass
+                System.err.println("Outbox consumer '" + entry.getKey() + "' failed: " + e.getMessage());
+            }
+        }
+        purge();
+    }
+
+    // Deletes are not needed on every pass; once a minute keeps the table small
+    private void purge() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurge = now;
+        try {
+            List<String> names = new ArrayList<>(consumers.keySet());
+            if (names.isEmpty() && !outbox.hasOffsets()) {
+                if (retentionMillis > 0) {
+                    outbox.purgeOlderThan(now - retentionMillis);
+                }
+            } else if (purgeConsumed) {
+                outbox.purgeConsumed(names);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Returns true if a full batch was delivered, i.e. there may be more waiting
+    private boolean relayBatch(String name, OutboxConsumer consumer) throws Exception {
+        long offset = outbox.getOffset(name);
+        List<OutboxRecord> records = deliverable(offset, outbox.findAfter(offset, batchSize));
+        if (records.isEmpty()) {
+            return false;
+        }
+        consumer.onBatch(records);
+        outbox.saveOffset(name, records.get(records.size() - 1).getId());
+        return records.size() == batchSize;
+    }
+
+    // Auto-increment ids are handed out at insert time but become visible at commit, so a gap
+    // can be a transaction that is still running. Stop at the first gap until it is older than
+    // the timeout; after that it is a rolled-back insert and will never be filled.
+    private List<OutboxRecord> deliverable(long offset, List<OutboxRecord> records) {
+        long expected = offset + 1;
+        long cutoff = System.currentTimeMillis() - gapTimeoutMillis;
+        for (int i = 0; i < records.size(); i++) {
+            OutboxRecord record = records.get(i);
+            // offset 0 means the consumer is new, so there is nothing to compare the first id with
+            boolean gap = record.getId() != expected && !(i == 0 && offset == 0);
+            if (gap && record.getCreatedAt() > cutoff) {
+                return records.subList(0, i);
+            }
+            expected = record.getId() + 1;
+        }
+        return records;
+    }
+}
@@ -0,0 +1,33 @@
+package com.inventory.service;
+
+import com.inventory.repository.OutboxRecord;
+import com.inventory.repository.SalesRollupRepository;
+import com.inventory.service.event.OrderCreated;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Adds newly committed orders to the monthly sales rollup from their OrderCreated events, off
+// the order transactions. The repository skips events it has already counted, so redelivery
+// after a crash is harmless.
+public class SalesRollupConsumer implements OutboxConsumer {
+    public static final String NAME = "sales-monthly-rollup";
+
+    private final SalesRollupRepository rollups;
+
+    public SalesRollupConsumer(SalesRollupRepository rollups) {
+        this.rollups = rollups;
+    }
+
+    @Override
+    public void onBatch(List<OutboxRecord> records) throws Exception {
+        SortedMap<Long, Integer> orders = new TreeMap<>();
+        for (OutboxRecord record : records) {
+            if (OrderCreated.class.getSimpleName().equals(record.getType())) {
+                orders.put(record.getId(), ((OrderCreated) record.toEvent()).getOrderId());
+            }
+        }
+        rollups.recordMonthly(orders);
+    }
+}
@@ -0,0 +1,185 @@
+package com.inventory.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Append-only redo log for the stock ledger, one line per reservation or release:
+//   <seq> <productId>:<quantity>,<productId>:<quantity>...
+// Writers append under a lock and then sync; concurrent writers share one fsync.
+// The log is split into numbered segments so flushed segments can simply be deleted.
+class StockJournal {
+    private static final String PREFIX = "stock-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final Object syncLock = new Object();
+
+    // Guarded by this
+    private FileChannel channel;
+    private long segment;
+    private long lastSeq;
+    private volatile long writtenSeq;
+    private volatile long syncedSeq;
+
+    StockJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    // Reads every surviving entry, oldest first. A torn last line from a crash is ignored:
+    // it was never synced, so the reservation it describes was never acknowledged.
+    synchronized TreeMap<Long, Map<Integer, Integer>> recover() throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<Long, Map<Integer, Integer>> entries = new TreeMap<>();
+        for (Path file : segments()) {
+            segment = Math.max(segment, segmentNumber(file));
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Map.Entry<Long, Map<Integer, Integer>> entry = parse(line);
+                    if (entry != null) {
+                        entries.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    // Starts a fresh segment continuing after the given sequence number
+    synchronized void open(long afterSeq) throws IOException {
+        lastSeq = afterSeq;
+        writtenSeq = afterSeq;
+        syncedSeq = afterSeq;
+        openSegment();
+    }
+
+    // Returns the sequence number assigned to the entry; call sync(seq) before acknowledging it
+    synchronized long append(Map<Integer, Integer> quantities) throws IOException {
+        long seq = ++lastSeq;
+        StringBuilder sb = new StringBuilder(16 + quantities.size() * 12).append(seq).append(' ');
+        String separator = "";
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            sb.append(separator).append(entry.getKey()).append(':').append(entry.getValue());
+            separator = ",";
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(sb.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        writtenSeq = seq;
+        return seq;
+    }
+
+    synchronized long lastSequence() {
+        return lastSeq;
+    }
+
+    // Group commit: whoever syncs first covers every entry written so far
+    void sync(long seq) throws IOException {
+        if (!fsync || syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            long target = writtenSeq;
+            FileChannel current;
+            synchronized (this) {
+                current = channel;
+            }
+            current.force(false);
+            syncedSeq = target;
+        }
+    }
+
+    // Closes the current segment and starts a new one; returns the last sequence number the
+    // closed segments contain. Callers must hold off appends while rotating.
+    long rotate() throws IOException {
+        // Same lock order as sync(): syncLock, then this
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (fsync) {
+                    channel.force(false);
+                }
+                syncedSeq = writtenSeq;
+                channel.close();
+                openSegment();
+                return lastSeq;
+            }
+        }
+    }
+
+    // Deletes every segment except the one being written
+    synchronized void deleteClosedSegments() throws IOException {
+        for (Path file : segments()) {
+            if (segmentNumber(file) != segment) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segment++;
+        channel = FileChannel.open(directory.resolve(PREFIX + segment + SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)));
+        return files;
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Map.Entry<Long, Map<Integer, Integer>> parse(String line) {
+        int space = line.indexOf(' ');
+        if (space <= 0) {
+            return null;
+        }
+        try {
+            long seq = Long.parseLong(line.substring(0, space));
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
+            for (String pair : line.substring(space + 1).split(",")) {
+                int colon = pair.indexOf(':');
+                quantities.put(Integer.parseInt(pair.substring(0, colon)), Integer.parseInt(pair.substring(colon + 1)));
+            }
+            return Map.entry(seq, quantities);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
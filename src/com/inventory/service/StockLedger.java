@@ -0,0 +1,384 @@
+package com.inventory.service;
+
+import com.inventory.config.Configuration;
+import com.inventory.repository.ProductRepository;
+import com.inventory.repository.StockLedgerRepository;
+import com.inventory.service.event.StockChanged;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory source of truth for available stock while it is running. Orders reserve stock with
+// compare-and-set on a per-product counter instead of locking product rows in MySQL. Accepted
+// changes are journaled to disk, applied to the products table in batched background flushes,
+// and the counters are periodically reconciled with the table to pick up changes made
+// elsewhere (other instances, manual edits to the table).
+public class StockLedger {
+    private final StockLedgerRepository repository;
+    private final ProductRepository productRepo;
+    // Told about stock a flush has written, so views re-read it; null when nobody listens
+    private final EventBus events;
+    // Null when journaling is disabled; unflushed reservations are then lost on a crash
+    private final StockJournal journal;
+    private final long flushIntervalMillis;
+    private final long reconcileIntervalMillis;
+
+    private final Map<Integer, AtomicInteger> available = new ConcurrentHashMap<>();
+    // Units taken since the last flush (negative when more was released than taken)
+    private final Map<Integer, Integer> unflushed = new ConcurrentHashMap<>();
+    // Reservations share the read lock, so they never wait for each other; flush and
+    // reconciliation take the write lock briefly to see a consistent counters/unflushed pair
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ScheduledExecutorService scheduler;
+    // Journal sequence covered by the last successful flush; only touched by the flushing thread
+    private long flushedSeq;
+    // Bumped by every manual adjustment, so a reconciliation that read the table while one was
+    // in flight knows its snapshot may be stale
+    private final AtomicLong adjustments = new AtomicLong();
+
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+
+    public StockLedger(StockLedgerRepository repository, ProductRepository productRepo, Configuration config) {
+        this(repository, productRepo, null, config);
+    }
+
+    public StockLedger(StockLedgerRepository repository, ProductRepository productRepo, EventBus events,
+                       Configuration config) {
+        this.repository = repository;
+        this.productRepo = productRepo;
+        this.events = events;
+        String journalDir = config.getString("ledger.journal.dir", "ledger-journal");
+        this.journal = journalDir.isEmpty() ? null
+            : new StockJournal(Paths.get(journalDir), config.getBoolean("ledger.journal.fsync", true));
+        this.flushIntervalMillis = Math.max(10, config.getLong("ledger.flushIntervalMillis", 200));
+        this.reconcileIntervalMillis = config.getLong("ledger.reconcileIntervalMillis", 60_000);
+    }
+
+    // Replays anything a previous run journaled but never flushed, then loads the counters
+    public synchronized void start() throws SQLException, IOException {
+        if (scheduler != null) {
+            return;
+        }
+        repository.createTables();
+        long flushedSeq = repository.getFlushedSequence();
+        long lastSeq = flushedSeq;
+        if (journal != null) {
+            TreeMap<Long, Map<Integer, Integer>> entries = journal.recover();
+            Map<Integer, Integer> pending = new HashMap<>();
+            for (Map.Entry<Long, Map<Integer, Integer>> entry : entries.tailMap(flushedSeq, false).entrySet()) {
+                entry.getValue().forEach((id, qty) -> pending.merge(id, qty, Integer::sum));
+                lastSeq = entry.getKey();
+            }
+            if (lastSeq > flushedSeq) {
+                pending.values().removeIf(qty -> qty == 0);
+                repository.applyDecrements(pending, lastSeq);
+                productRepo.invalidate(pending.keySet());
+            }
+            lastSeq = Math.max(lastSeq, entries.isEmpty() ? 0 : entries.lastKey());
+            journal.open(lastSeq);
+            journal.deleteClosedSegments();
+        }
+
+        this.flushedSeq = lastSeq;
+        repository.loadStockLevels().forEach((id, stock) -> available.put(id, new AtomicInteger(stock)));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Flush and reconcile share this one thread, so they never overlap
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+            TimeUnit.MILLISECONDS);
+        if (reconcileIntervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::reconcileQuietly, reconcileIntervalMillis, reconcileIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Flushes what is pending and stops the background thread
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+        }
+        scheduler = null;
+    }
+
+    // All-or-nothing reservation. Returns the lines that could not be reserved (product id ->
+    // units available); an empty map means every line was reserved and journaled.
+    public Map<Integer, Integer> reserve(Map<Integer, Integer> items) throws IOException {
+        return reserve(items, null);
+    }
+
+    // As above, and on success puts the level each product was left at into levels
+    public Map<Integer, Integer> reserve(Map<Integer, Integer> items, Map<Integer, Integer> levels) throws IOException {
+        loadMissing(items.keySet());
+        Map<Integer, Integer> shortages = new LinkedHashMap<>();
+        List<Map.Entry<Integer, Integer>> taken = new ArrayList<>(items.size());
+        long seq = 0;
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> left = new HashMap<>();
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                AtomicInteger counter = available.get(item.getKey());
+                int level = counter == null ? -item.getValue() : tryTake(counter, item.getValue());
+                if (level < 0) {
+                    shortages.put(item.getKey(), level + item.getValue());
+                } else {
+                    taken.add(item);
+                    left.put(item.getKey(), level);
+                }
+            }
+            if (!shortages.isEmpty()) {
+                for (Map.Entry<Integer, Integer> item : taken) {
+                    available.get(item.getKey()).addAndGet(item.getValue());
+                }
+                rejections.increment();
+                return shortages;
+            }
+
+            if (journal != null) {
+                try {
+                    seq = journal.append(items);
+                } catch (IOException e) {
+                    for (Map.Entry<Integer, Integer> item : taken) {
+                        available.get(item.getKey()).addAndGet(item.getValue());
+                    }
+                    throw e;
+                }
+            }
+            items.forEach((id, qty) -> unflushed.merge(id, qty, Integer::sum));
+            if (journal != null) {
+                // Inside the read lock so the segment cannot be rotated away mid-sync
+                journal.sync(seq);
+            }
+            if (levels != null) {
+                levels.putAll(left);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        reservations.increment();
+        return shortages;
+    }
+
+    // Gives back stock from a reservation whose order could not be recorded
+    public void release(Map<Integer, Integer> items) throws IOException {
+        Map<Integer, Integer> returned = new LinkedHashMap<>();
+        items.forEach((id, qty) -> returned.put(id, -qty));
+
+        lock.readLock().lock();
+        try {
+            if (journal != null) {
+                journal.sync(journal.append(returned));
+            }
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                available.get(item.getKey()).addAndGet(item.getValue());
+                unflushed.merge(item.getKey(), -item.getValue(), Integer::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A manual stock change, such as one from the stock update form. It is checked against the
+    // in-memory level, so it cannot take units that are reserved but not flushed yet, and is
+    // written straight through to the table (outbox event included) rather than journaled.
+    // Returns the new available level, or -1 if the product does not exist or the change would
+    // take it below zero.
+    public int adjust(int productId, int quantity) throws IOException {
+        loadMissing(Collections.singleton(productId));
+        // Held across the table write so reconciliation cannot run between it and the counter update
+        lock.readLock().lock();
+        try {
+            AtomicInteger counter = available.get(productId);
+            if (counter == null) {
+                return -1;
+            }
+            if (quantity < 0 && tryTake(counter, -quantity) < 0) {
+                rejections.increment();
+                return -1;
+            }
+            if (productRepo.adjustStock(productId, quantity) < 0) {
+                if (quantity < 0) {
+                    counter.addAndGet(-quantity);
+                }
+                return -1;
+            }
+            int level = quantity < 0 ? counter.get() : counter.addAndGet(quantity);
+            adjustments.incrementAndGet();
+            return level;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Current in-memory level, or -1 for products the ledger has not loaded
+    public int getAvailable(int productId) {
+        AtomicInteger counter = available.get(productId);
+        return counter == null ? -1 : counter.get();
+    }
+
+    // Writes every unflushed change to the products table in one transaction
+    public void flush() throws SQLException, IOException {
+        Map<Integer, Integer> batch;
+        long throughSeq = 0;
+        lock.writeLock().lock();
+        try {
+            if (unflushed.isEmpty() && (journal == null || journal.lastSequence() == flushedSeq)) {
+                return;
+            }
+            batch = new HashMap<>(unflushed);
+            unflushed.clear();
+            if (journal != null) {
+                throughSeq = journal.rotate();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        batch.values().removeIf(qty -> qty == 0);
+
+        try {
+            repository.applyDecrements(batch, throughSeq);
+        } catch (SQLException e) {
+            // Put the batch back; the journal segments stay until a flush succeeds
+            batch.forEach((id, qty) -> unflushed.merge(id, qty, Integer::sum));
+            flushFailures.increment();
+            throw e;
+        }
+        flushes.increment();
+        flushedSeq = throughSeq;
+        if (journal != null) {
+            journal.deleteClosedSegments();
+        }
+        // Until now the table, and anything cached from it, showed the stock before these orders
+        productRepo.invalidate(batch.keySet());
+        if (events != null) {
+            batch.forEach((id, qty) -> events.publish(new StockChanged(id, -qty, getAvailable(id))));
+        }
+    }
+
+    // Re-bases each counter on the table: available = stock in the table - changes not yet flushed
+    public void reconcile() throws SQLException {
+        long adjustmentsBefore = adjustments.get();
+        Map<Integer, Integer> stored = repository.loadStockLevels();
+        lock.writeLock().lock();
+        try {
+            if (adjustments.get() != adjustmentsBefore) {
+                // A manual adjustment landed while we were reading; try again next round
+                return;
+            }
+            for (Map.Entry<Integer, Integer> row : stored.entrySet()) {
+                int expected = row.getValue() - unflushed.getOrDefault(row.getKey(), 0);
+                AtomicInteger counter = available.putIfAbsent(row.getKey(), new AtomicInteger(expected));
+                if (counter != null && counter.get() != expected) {
+                    counter.set(expected);
+                    corrections.increment();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getReservationCount() { return reservations.sum(); }
+    public long getRejectionCount() { return rejections.sum(); }
+    public long getFlushCount() { return flushes.sum(); }
+    public long getFlushFailureCount() { return flushFailures.sum(); }
+    public long getCorrectionCount() { return corrections.sum(); }
+
+    public int getUnflushedProductCount() {
+        return unflushed.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StockLedger[products=%d, unflushed=%d, reservations=%d, rejections=%d, flushes=%d, "
+                + "flushFailures=%d, corrections=%d]",
+            available.size(), getUnflushedProductCount(), getReservationCount(), getRejectionCount(),
+            getFlushCount(), getFlushFailureCount(), getCorrectionCount());
+    }
+
+    // Returns the level left after taking the quantity. A negative result means nothing was
+    // taken; adding the quantity back gives the level that was too low.
+    private static int tryTake(AtomicInteger counter, int quantity) {
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return current - quantity;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return current - quantity;
+            }
+        }
+    }
+
+    // Products created after start() are loaded on first use
+    void loadMissing(Collection<Integer> productIds) throws IOException {
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : productIds) {
+            if (!available.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            repository.findStockLevels(missing).forEach((id, stock) -> available.putIfAbsent(id, new AtomicInteger(stock)));
+        } catch (SQLException e) {
+            throw new IOException("Could not load stock for products " + missing, e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | IOException e) {
+            System.err.println("Stock ledger flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (SQLException e) {
+            System.err.println("Stock ledger reconciliation failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.inventory.service.event;
+
+import com.inventory.model.Product;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Text form of events for the outbox table: semicolon-separated key=value pairs.
+// Free text (product descriptions) always comes last so it may contain separators.
+public final class EventCodec {
+    private EventCodec() {
+    }
+
+    public static String typeOf(InventoryEvent event) {
+        return event.getClass().getSimpleName();
+    }
+
+    public static String encode(InventoryEvent event) {
+        if (event instanceof StockChanged) {
+            StockChanged e = (StockChanged) event;
+            return "productId=" + e.getProductId() + ";delta=" + e.getDelta() + ";newLevel=" + e.getNewLevel();
+        }
+        if (event instanceof OrderCreated) {
+            OrderCreated e = (OrderCreated) event;
+            StringBuilder sb = new StringBuilder("orderId=").append(e.getOrderId()).append(";lines=");
+            String separator = "";
+            for (Map.Entry<Integer, Integer> line : e.getLines().entrySet()) {
+                sb.append(separator).append(line.getKey()).append(':').append(line.getValue());
+                separator = ",";
+            }
+            return sb.toString();
+        }
+        if (event instanceof ProductAdded) {
+            Product p = ((ProductAdded) event).getProduct();
+            return "id=" + p.getId() + ";price=" + p.getPrice() + ";stock=" + p.getStock()
+                + ";description=" + p.getDescription();
+        }
+        throw new IllegalArgumentException("No encoding for " + typeOf(event));
+    }
+
+    public static InventoryEvent decode(String type, String payload, long timestamp) {
+        switch (type) {
+            case "StockChanged": {
+                Map<String, String> f = fields(payload, 3);
+                return new StockChanged(Integer.parseInt(f.get("productId")), Integer.parseInt(f.get("delta")),
+                    Integer.parseInt(f.get("newLevel")), timestamp);
+            }
+            case "OrderCreated": {
+                Map<String, String> f = fields(payload, 2);
+                Map<Integer, Integer> lines = new LinkedHashMap<>();
+                for (String line : f.get("lines").split(",")) {
+                    if (!line.isEmpty()) {
+                        String[] parts = line.split(":");
+                        lines.put(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+                    }
+                }
+                return new OrderCreated(Integer.parseInt(f.get("orderId")), lines, timestamp);
+            }
+            case "ProductAdded": {
+                Map<String, String> f = fields(payload, 4);
+                return new ProductAdded(new Product(Integer.parseInt(f.get("id")), f.get("description"),
+                    Double.parseDouble(f.get("price")), Integer.parseInt(f.get("stock"))), timestamp);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + type);
+        }
+    }
+
+    private static Map<String, String> fields(String payload, int count) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String pair : payload.split(";", count)) {
+            int eq = pair.indexOf('=');
+            fields.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return fields;
+    }
+}
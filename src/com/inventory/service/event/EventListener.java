@@ -0,0 +1,6 @@
+package com.inventory.service.event;
+
+@FunctionalInterface
+public interface EventListener<E extends InventoryEvent> {
+    void onEvent(E event);
+}
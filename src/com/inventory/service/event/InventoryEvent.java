@@ -0,0 +1,37 @@
+package com.inventory.service.event;
+
+import java.util.Set;
+
+// Base class for change notifications published after a successful write
+public abstract class InventoryEvent {
+    private final long timestamp;
+
+    protected InventoryEvent() {
+        this(System.currentTimeMillis());
+    }
+
+    protected InventoryEvent(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    // Products whose rows this change touched, so views and caches can update just those
+    public abstract Set<Integer> getProductIds();
+
+    // Merges a later event into this one when a subscriber falls behind, or returns null if the
+    // two cannot be combined without losing information
+    public InventoryEvent coalesce(InventoryEvent newer) {
+        return null;
+    }
+
+    // One-line summary for logs and the UI
+    public abstract String describe();
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+}
@@ -0,0 +1,35 @@
+package com.inventory.service.event;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class OrderCreated extends InventoryEvent {
+    private final int orderId;
+    // product id -> quantity ordered
+    private final Map<Integer, Integer> lines;
+
+    public OrderCreated(int orderId, Map<Integer, Integer> lines) {
+        this(orderId, lines, System.currentTimeMillis());
+    }
+
+    OrderCreated(int orderId, Map<Integer, Integer> lines, long timestamp) {
+        super(timestamp);
+        this.orderId = orderId;
+        this.lines = Collections.unmodifiableMap(new LinkedHashMap<>(lines));
+    }
+
+    public int getOrderId() { return orderId; }
+    public Map<Integer, Integer> getLines() { return lines; }
+
+    @Override
+    public Set<Integer> getProductIds() {
+        return lines.keySet();
+    }
+
+    @Override
+    public String describe() {
+        return "New order #" + orderId + " created with " + lines.size() + " line(s)";
+    }
+}
@@ -0,0 +1,31 @@
+package com.inventory.service.event;
+
+import com.inventory.model.Product;
+import java.util.Set;
+
+public class ProductAdded extends InventoryEvent {
+    private final Product product;
+
+    public ProductAdded(Product product) {
+        this.product = product;
+    }
+
+    ProductAdded(Product product, long timestamp) {
+        super(timestamp);
+        this.product = product;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    @Override
+    public Set<Integer> getProductIds() {
+        return Set.of(product.getId());
+    }
+
+    @Override
+    public String describe() {
+        return "New product added: #" + product.getId() + " " + product.getDescription();
+    }
+}
@@ -0,0 +1,45 @@
+package com.inventory.service.event;
+
+import java.util.Set;
+
+public class StockChanged extends InventoryEvent {
+    private final int productId;
+    private final int delta;
+    private final int newLevel;
+
+    public StockChanged(int productId, int delta, int newLevel) {
+        this(productId, delta, newLevel, System.currentTimeMillis());
+    }
+
+    StockChanged(int productId, int delta, int newLevel, long timestamp) {
+        super(timestamp);
+        this.productId = productId;
+        this.delta = delta;
+        this.newLevel = newLevel;
+    }
+
+    public int getProductId() { return productId; }
+    public int getDelta() { return delta; }
+    public int getNewLevel() { return newLevel; }
+
+    // Two changes to the same product collapse into their net effect
+    @Override
+    public InventoryEvent coalesce(InventoryEvent newer) {
+        if (newer instanceof StockChanged && ((StockChanged) newer).productId == productId) {
+            StockChanged later = (StockChanged) newer;
+            return new StockChanged(productId, delta + later.delta, later.newLevel, later.getTimestamp());
+        }
+        return null;
+    }
+
+    @Override
+    public Set<Integer> getProductIds() {
+        return Set.of(productId);
+    }
+
+    @Override
+    public String describe() {
+        return "Stock updated for product #" + productId + " (" + (delta >= 0 ? "+" : "") + delta
+            + ", now " + newLevel + ")";
+    }
+}
@@ -1,20 +1,44 @@
 package com.inventory.ui;
 
 import com.inventory.InventoryFacade;
+import com.inventory.controller.AsyncExecutor;
 import com.inventory.controller.OrderController;
 import com.inventory.controller.ProductController;
 import com.inventory.controller.ReportController;
+import com.inventory.format.ColumnLayout;
 import com.inventory.model.OrderData; // Add this import
 import com.inventory.model.Product;
 import com.inventory.model.UserRole;
+import com.inventory.report.ExportFormat;
+import com.inventory.report.ReportPages;
+import com.inventory.repository.SalesQuery;
 import com.inventory.service.Observer;
+import com.inventory.service.event.InventoryEvent;
+import com.inventory.service.event.OrderCreated;
+import com.inventory.service.event.ProductAdded;
+import com.inventory.service.event.StockChanged;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class InventoryManagementUI implements Observer, ProductView, OrderView, ReportView {
+    private static final ColumnLayout ORDER_ITEM = ColumnLayout.compile("%d x %s (Stock remaining: %d)");
+
     // UI components
     private final UserRole userRole;
     private final InventoryFacade facade;
@@ -22,7 +46,8 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
     private JTextArea logArea;
     private JComboBox<String> productSelector;
     private JSpinner quantitySpinner;
-    private DefaultListModel<String> productListModel;
+    private ProductTableModel productTableModel;
+    private JTable productTable;
     private DefaultListModel<String> orderItemsModel;
     
     // Form fields
@@ -31,11 +56,15 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
     private JSpinner addProductStockSpinner;
     private JTextField updateStockIdField;
     private JSpinner updateStockQuantitySpinner;
-    private JTextArea reportArea;
+    private PagedReportPanel reportPanel;
+    private CompletableFuture<?> runningReport;
+    private final RefreshScheduler refreshScheduler;
 
     public InventoryManagementUI(InventoryFacade facade, UserRole role) {
         this.facade = facade;
         this.userRole = role;
+        this.refreshScheduler = new RefreshScheduler(
+            facade.getConfiguration().getInt("ui.refresh.coalesceMillis", 250));
         this.facade.registerObserver(this);
         
         initializeUI();
@@ -48,6 +77,33 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
         productController.setView(this);
         orderController.setView(this);
         reportController.setView(this);
+
+        // Each view refreshes at most once per coalescing window, however many changes arrive
+        refreshScheduler.register(RefreshScheduler.Target.PRODUCT_TABLE, changedIds -> {
+            if (changedIds == null) {
+                productController.refreshProducts();
+            } else {
+                productTableModel.refreshRows(changedIds);
+            }
+        });
+        if (userRole.canManageOrders()) {
+            refreshScheduler.register(RefreshScheduler.Target.ORDER_PRODUCTS, changedIds -> {
+                if (changedIds == null) {
+                    orderController.refreshProductList();
+                } else {
+                    orderController.refreshProductList(changedIds);
+                }
+            });
+        }
+
+        // Each event names the products it touched, so views only re-read those rows.
+        // A new product shifts row positions in the sorted table, so that one needs a recount.
+        facade.subscribe(StockChanged.class, event -> requestDelta(event));
+        facade.subscribe(OrderCreated.class, event -> requestDelta(event));
+        facade.subscribe(ProductAdded.class, event -> {
+            refreshScheduler.requestFull(RefreshScheduler.Target.PRODUCT_TABLE);
+            refreshScheduler.requestDelta(RefreshScheduler.Target.ORDER_PRODUCTS, event.getProductIds());
+        });
         
         // Initial data load
         if (userRole.canManageProducts() || userRole.canManageOrders()) {
@@ -97,11 +153,36 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(new EmptyBorder(10, 10, 10, 10));
 
-        // Product List
-        productListModel = new DefaultListModel<>();
-        JList<String> productList = new JList<>(productListModel);
-        productList.setFont(new Font("SansSerif", Font.PLAIN, 14));
-        JScrollPane scrollPane = new JScrollPane(productList);
+        // Product table, populated page by page as rows scroll into view
+        productTableModel = new ProductTableModel(facade.getProductController());
+        productTable = new JTable(productTableModel);
+        productTable.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        productTable.setRowHeight(22);
+        productTable.setDefaultRenderer(Double.class, new DefaultTableCellRenderer() {
+            // Renderers only run on the EDT, so one line is reused for every price cell
+            private final ColumnLayout.Line price = ColumnLayout.compile("$%.2f").newLine();
+
+            @Override
+            protected void setValue(Object value) {
+                setHorizontalAlignment(SwingConstants.RIGHT);
+                setText(value == null ? "" : price.add((Double) value).format());
+            }
+        });
+        productTable.getColumnModel().getColumn(0).setPreferredWidth(60);
+        productTable.getColumnModel().getColumn(1).setPreferredWidth(400);
+        // Sorting happens in the database, so the header only tells the model what was clicked
+        productTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = productTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    productTableModel.sortBy(productTable.convertColumnIndexToModel(column));
+                    updateProductTableHeaders();
+                }
+            }
+        });
+        updateProductTableHeaders();
+        JScrollPane scrollPane = new JScrollPane(productTable);
         scrollPane.setBorder(BorderFactory.createTitledBorder("Product List"));
 
         // Product management panels
@@ -121,7 +202,7 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
             addButton.addActionListener(e -> {
                 try {
                     double price = Double.parseDouble(addProductPriceField.getText().trim());
-                    facade.getProductController().addProduct(
+                    facade.getProductController().addProductFromForm(
                         addProductDescField.getText(), 
                         price, 
                         (Integer) addProductStockSpinner.getValue()
@@ -151,7 +232,7 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
             updateButton.addActionListener(e -> {
                 try {
                     int productId = Integer.parseInt(updateStockIdField.getText().trim());
-                    facade.getProductController().updateStock(
+                    facade.getProductController().updateStockFromForm(
                         productId, 
                         (Integer) updateStockQuantitySpinner.getValue()
                     );
@@ -174,14 +255,30 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
         // Product list in center
         panel.add(scrollPane, BorderLayout.CENTER);
 
-        // Refresh button at bottom
-        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        // Filter and refresh controls at bottom
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField filterField = new JTextField(20);
+        // Wait for a pause in typing before querying
+        Timer filterTimer = new Timer(300, e -> productTableModel.setFilter(filterField.getText()));
+        filterTimer.setRepeats(false);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { filterTimer.restart(); }
+            @Override public void removeUpdate(DocumentEvent e) { filterTimer.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { filterTimer.restart(); }
+        });
+        filterPanel.add(new JLabel("Filter:"));
+        filterPanel.add(filterField);
+
+        JPanel refreshPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton refreshBtn = new JButton("Refresh");
         
         // Use controller for refresh
-        refreshBtn.addActionListener(e -> facade.getProductController().refreshProducts());
+        refreshBtn.addActionListener(e -> facade.getProductController().reloadProducts());
         
-        bottomPanel.add(refreshBtn);
+        refreshPanel.add(refreshBtn);
+        bottomPanel.add(filterPanel, BorderLayout.WEST);
+        bottomPanel.add(refreshPanel, BorderLayout.EAST);
         panel.add(bottomPanel, BorderLayout.SOUTH);
 
         return panel;
@@ -253,35 +350,165 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
         }
         reportTypeBox.setModel(model);
         
+        // Sales report window; blank dates leave that end of the range open
+        JTextField fromField = new JTextField(8);
+        JTextField toField = new JTextField(8);
+        fromField.setToolTipText("First day, yyyy-MM-dd");
+        toField.setToolTipText("Last day, yyyy-MM-dd");
+        JTextField productFilterField = new JTextField(10);
+        productFilterField.setToolTipText("Only products whose description contains this text");
+        JComboBox<SalesQuery.Granularity> granularityBox = new JComboBox<>(SalesQuery.Granularity.values());
+        granularityBox.setSelectedItem(SalesQuery.Granularity.MONTH);
+
         JButton generateBtn = new JButton("Generate Report");
-        generateBtn.addActionListener(e -> {
+        JButton regenerateBtn = new JButton("Regenerate");
+        regenerateBtn.setToolTipText("Build the report again instead of showing a scheduled or cached copy");
+        JButton saveBtn = new JButton("Save As...");
+        JButton cancelBtn = new JButton("Cancel");
+        cancelBtn.setEnabled(false);
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+
+        // Regenerating skips any stored or cached copy; otherwise both open the same way
+        Consumer<Boolean> openReport = regenerate -> {
             String reportType = (String) reportTypeBox.getSelectedItem();
-            if (reportType != null) {
-                String reportContent = facade.getReportController().generateReport(reportType);
-                displayReport(reportContent);
-                log("Generated " + reportType + " report");
+            SalesQuery salesQuery = readSalesQuery(fromField, toField, productFilterField, granularityBox);
+            if (reportType != null && salesQuery != null) {
+                generateBtn.setEnabled(false);
+                regenerateBtn.setEnabled(false);
+                saveBtn.setEnabled(false);
+                cancelBtn.setEnabled(true);
+                int linesPerPage = facade.getConfiguration().getInt("ui.report.linesPerPage", 1000);
+                AsyncExecutor.ProgressListener listener = (percent, stage) -> {
+                    progressBar.setValue(percent);
+                    progressBar.setString(stage);
+                };
+                CompletableFuture<ReportPages> opening = regenerate
+                    ? facade.getReportController().regenerateReportAsync(reportType, salesQuery, linesPerPage, listener)
+                    : facade.getReportController().openReportAsync(reportType, salesQuery, linesPerPage, listener);
+                runningReport = opening;
+                opening.whenCompleteAsync((pages, error) -> {
+                    generateBtn.setEnabled(true);
+                    regenerateBtn.setEnabled(true);
+                    saveBtn.setEnabled(true);
+                    cancelBtn.setEnabled(false);
+                    runningReport = null;
+                    if (error == null) {
+                        reportPanel.show(pages);
+                        log("Generated " + reportType + " report");
+                    } else if (error instanceof CancellationException) {
+                        progressBar.setString("Cancelled");
+                        log("Cancelled " + reportType + " report");
+                    } else {
+                        progressBar.setString("Failed");
+                        showErrorMessage("Could not generate report: " + error.getMessage(), "Report Error");
+                    }
+                }, AsyncExecutor.EDT);
+            }
+        };
+        generateBtn.addActionListener(e -> openReport.accept(false));
+        regenerateBtn.addActionListener(e -> openReport.accept(true));
+        saveBtn.addActionListener(e -> {
+            String reportType = (String) reportTypeBox.getSelectedItem();
+            SalesQuery salesQuery = readSalesQuery(fromField, toField, productFilterField, granularityBox);
+            if (reportType == null || salesQuery == null) {
+                return;
+            }
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new File(reportType + "-report.txt"));
+            chooser.setDialogTitle("Save Report (.txt for text; .csv, .jsonl or .col for data)");
+            if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            Path target = chooser.getSelectedFile().toPath();
+            // .csv, .jsonl and .col save the report's data; any other name saves the text
+            ExportFormat format = ExportFormat.forFileName(target.getFileName().toString());
+            AsyncExecutor.ProgressListener listener = (percent, stage) -> {
+                progressBar.setValue(percent);
+                progressBar.setString(stage);
+            };
+            generateBtn.setEnabled(false);
+            regenerateBtn.setEnabled(false);
+            saveBtn.setEnabled(false);
+            cancelBtn.setEnabled(true);
+            CompletableFuture<Long> saving = format != null
+                ? facade.getReportController().exportDataAsync(reportType, salesQuery, format, target, listener)
+                : facade.getReportController().exportReportAsync(reportType, salesQuery, target, listener);
+            runningReport = saving;
+            saving.whenCompleteAsync((bytes, error) -> {
+                generateBtn.setEnabled(true);
+                regenerateBtn.setEnabled(true);
+                saveBtn.setEnabled(true);
+                cancelBtn.setEnabled(false);
+                runningReport = null;
+                if (error == null) {
+                    log("Saved " + reportType + " report to " + target + " (" + bytes + " bytes)");
+                } else if (error instanceof CancellationException) {
+                    progressBar.setString("Cancelled");
+                } else {
+                    progressBar.setString("Failed");
+                    showErrorMessage("Could not save report: " + error.getMessage(), "Report Error");
+                }
+            }, AsyncExecutor.EDT);
+        });
+        cancelBtn.addActionListener(e -> {
+            if (runningReport != null) {
+                runningReport.cancel(true);
             }
         });
         
         controlPanel.add(reportTypeBox);
+        controlPanel.add(new JLabel("From:"));
+        controlPanel.add(fromField);
+        controlPanel.add(new JLabel("To:"));
+        controlPanel.add(toField);
+        controlPanel.add(new JLabel("Product:"));
+        controlPanel.add(productFilterField);
+        controlPanel.add(granularityBox);
         controlPanel.add(generateBtn);
+        controlPanel.add(regenerateBtn);
+        controlPanel.add(saveBtn);
+        controlPanel.add(cancelBtn);
+        controlPanel.add(progressBar);
         panel.add(controlPanel, BorderLayout.NORTH);
         
-        // Report display area 
-        reportArea = new JTextArea(20, 50);
-        reportArea.setEditable(false);
-        reportArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        panel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+        // Report display area, one page of the spooled report at a time
+        reportPanel = new PagedReportPanel();
+        panel.add(reportPanel, BorderLayout.CENTER);
         
         return panel;
     }
 
+    // Null after telling the user what is wrong with the input
+    private SalesQuery readSalesQuery(JTextField fromField, JTextField toField, JTextField productFilterField,
+                                      JComboBox<SalesQuery.Granularity> granularityBox) {
+        try {
+            LocalDate from = fromField.getText().isBlank() ? null : LocalDate.parse(fromField.getText().trim());
+            LocalDate to = toField.getText().isBlank() ? null
+                : LocalDate.parse(toField.getText().trim()).plusDays(1);
+            return new SalesQuery(from, to, productFilterField.getText(),
+                (SalesQuery.Granularity) granularityBox.getSelectedItem());
+        } catch (DateTimeParseException ex) {
+            showErrorMessage("Dates must look like 2024-01-31", "Input Error");
+        } catch (IllegalArgumentException ex) {
+            showErrorMessage(ex.getMessage(), "Input Error");
+        }
+        return null;
+    }
+
+    private void updateProductTableHeaders() {
+        for (int i = 0; i < productTableModel.getColumnCount(); i++) {
+            productTable.getColumnModel().getColumn(i).setHeaderValue(productTableModel.getColumnName(i));
+        }
+        productTable.getTableHeader().repaint();
+    }
+
     // ProductView implementation
     @Override
-    public void displayProducts(List<Product> products) {
-        productListModel.clear();
-        for (Product p : products) {
-            productListModel.addElement(p.toString());
+    public void refreshProductTable() {
+        if (productTableModel != null) {
+            productTableModel.refresh();
         }
     }
 
@@ -321,11 +548,34 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
         }
     }
 
+    @Override
+    public void updateProductDropdownEntries(Collection<Product> changedProducts) {
+        if (productSelector == null) {
+            return;
+        }
+        for (Product p : changedProducts) {
+            String prefix = p.getId() + " - ";
+            int index = -1;
+            for (int i = 0; i < productSelector.getItemCount(); i++) {
+                if (productSelector.getItemAt(i).startsWith(prefix)) {
+                    index = i;
+                    break;
+                }
+            }
+            String label = prefix + p.getDescription();
+            if (p.getStock() > 0 && index < 0) {
+                productSelector.addItem(label);
+            } else if (p.getStock() <= 0 && index >= 0) {
+                productSelector.removeItemAt(index);
+            }
+        }
+    }
+
     @Override
     public void addOrderItem(Product product, int quantity) {
         if (orderItemsModel != null) {
-            orderItemsModel.addElement(String.format("%d x %s (Stock remaining: %d)",
-                quantity, product.getDescription(), product.getStock() - quantity));
+            orderItemsModel.addElement(ORDER_ITEM.newLine()
+                .add(quantity).add(product.getDescription()).add(product.getStock() - quantity).format());
         }
     }
 
@@ -372,8 +622,8 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
     // ReportView implementation
     @Override
     public void displayReport(String reportContent) {
-        if (reportArea != null) {
-            reportArea.setText(reportContent);
+        if (reportPanel != null) {
+            reportPanel.showText(reportContent);
         }
     }
 
@@ -395,16 +645,16 @@ public class InventoryManagementUI implements Observer, ProductView, OrderView,
         }
     }
 
-    // Observer implementation
+    // Observer implementation; refreshes are driven by the typed subscriptions above
     @Override
-    public void update(String message) {
-        SwingUtilities.invokeLater(() -> {
-            log(message);
-            facade.getProductController().refreshProducts();
-            if (userRole.canManageOrders()) {
-                facade.getOrderController().refreshProductList();
-            }
-        });
+    public void update(InventoryEvent event) {
+        log(event.describe());
+    }
+
+    // Bursts of events collapse into one refresh per view
+    private void requestDelta(InventoryEvent event) {
+        refreshScheduler.requestDelta(RefreshScheduler.Target.PRODUCT_TABLE, event.getProductIds());
+        refreshScheduler.requestDelta(RefreshScheduler.Target.ORDER_PRODUCTS, event.getProductIds());
     }
 
     public void display() {
@@ -1,7 +1,6 @@
 package com.inventory.ui;
 
 import com.inventory.InventoryFacade;
-import com.inventory.db.DatabaseConnection;
 import com.inventory.model.UserRole;
 import com.inventory.repository.UserRepository;
 
@@ -27,14 +26,24 @@ public class LoginUI {
     private void handleLogin(String username, String password) {
         if (userRepository.validateCredentials(username, password)) {
             String roleStr = userRepository.getUserRole(username);
+            UserRole role;
+            try {
+                role = UserRole.fromString(roleStr);
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(frame,
+                    "Invalid role configuration",
+                    "System Error",
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             try {
-                UserRole role = UserRole.fromString(roleStr);
                 InventoryManagementUI ui = new InventoryManagementUI(new InventoryFacade(), role);
                 ui.display();
                 frame.dispose();
-            } catch (IllegalArgumentException e) {
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                // A bad setting, or a database schema that could not be brought up to date
                 JOptionPane.showMessageDialog(frame,
-                    "Invalid role configuration",
+                    e.getMessage(),
                     "System Error",
                     JOptionPane.ERROR_MESSAGE);
             }
@@ -2,10 +2,12 @@ package com.inventory.ui;
 
 import com.inventory.model.OrderData;
 import com.inventory.model.Product;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderView {
     void updateProductDropdown(List<Product> products);
+    void updateProductDropdownEntries(Collection<Product> changedProducts);
     void addOrderItem(Product product, int quantity);
     void clearOrderItems();
     void showErrorMessage(String message, String title);
@@ -0,0 +1,83 @@
+package com.inventory.ui;
+
+import com.inventory.report.ReportPages;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+
+// Shows a spooled report one page at a time. Only the visible page is read from disk, so the
+// text area never holds more than a page however large the report is. Call on the EDT only.
+public class PagedReportPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private final JTextArea textArea = new JTextArea(20, 50);
+    private final JButton previousBtn = new JButton("< Prev");
+    private final JButton nextBtn = new JButton("Next >");
+    private final JLabel pageLabel = new JLabel(" ");
+    private ReportPages pages;
+    private int page;
+
+    public PagedReportPanel() {
+        super(new BorderLayout());
+        textArea.setEditable(false);
+        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        add(new JScrollPane(textArea), BorderLayout.CENTER);
+
+        JPanel navigation = new JPanel(new FlowLayout());
+        navigation.add(previousBtn);
+        navigation.add(pageLabel);
+        navigation.add(nextBtn);
+        add(navigation, BorderLayout.SOUTH);
+
+        previousBtn.addActionListener(e -> showPage(page - 1));
+        nextBtn.addActionListener(e -> showPage(page + 1));
+        updateNavigation();
+    }
+
+    // Takes ownership of the pages and closes whatever was shown before
+    public void show(ReportPages newPages) {
+        closePages();
+        pages = newPages;
+        showPage(0);
+    }
+
+    public void showText(String text) {
+        closePages();
+        textArea.setText(text);
+        textArea.setCaretPosition(0);
+        updateNavigation();
+    }
+
+    public void closePages() {
+        if (pages != null) {
+            try {
+                pages.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            pages = null;
+        }
+    }
+
+    private void showPage(int requested) {
+        if (pages == null || requested < 0 || requested >= pages.getPageCount()) {
+            return;
+        }
+        try {
+            textArea.setText(pages.readPage(requested));
+            textArea.setCaretPosition(0);
+            page = requested;
+        } catch (IOException e) {
+            textArea.setText("Could not read report page: " + e.getMessage());
+        }
+        updateNavigation();
+    }
+
+    private void updateNavigation() {
+        boolean paged = pages != null && pages.getPageCount() > 1;
+        previousBtn.setEnabled(paged && page > 0);
+        nextBtn.setEnabled(paged && page < pages.getPageCount() - 1);
+        pageLabel.setText(pages == null ? " " : "Page " + (page + 1) + " of " + pages.getPageCount());
+    }
+}
@@ -0,0 +1,231 @@
+package com.inventory.ui;
+
+import com.inventory.controller.AsyncExecutor;
+import com.inventory.controller.ProductController;
+import com.inventory.model.Product;
+import com.inventory.repository.ProductQuery;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+// Virtual table model: only the row count is known up front and pages of rows are
+// fetched from the database in the background the first time the table asks for them.
+public class ProductTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"ID", "Description", "Price", "Stock"};
+    private static final ProductQuery.SortColumn[] SORT_COLUMNS = {
+        ProductQuery.SortColumn.ID,
+        ProductQuery.SortColumn.DESCRIPTION,
+        ProductQuery.SortColumn.PRICE,
+        ProductQuery.SortColumn.STOCK
+    };
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 50;
+
+    private final ProductController controller;
+
+    // All fields below are only touched on the EDT
+    private final Map<Integer, List<Product>> pages = new LinkedHashMap<Integer, List<Product>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Product>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> pending = new HashSet<>();
+    // Pages whose load failed; left blank rather than re-queried on every repaint until the
+    // next refresh
+    private final Set<Integer> failed = new HashSet<>();
+    private ProductQuery query = ProductQuery.all();
+    private int rowCount;
+    // Bumped whenever the query or data changes so late results from older loads are ignored
+    private int generation;
+    // Generation the pages map belongs to. Until a refresh's count arrives the map still holds
+    // the previous query's rows, which must not be used as a keyset cursor for the new one.
+    private int pagesGeneration;
+
+    public ProductTableModel(ProductController controller) {
+        this.controller = controller;
+    }
+
+    public ProductQuery getQuery() {
+        return query;
+    }
+
+    // Clicking the same column again flips the direction
+    public void sortBy(int column) {
+        ProductQuery.SortColumn sortColumn = SORT_COLUMNS[column];
+        boolean ascending = query.getSortColumn() != sortColumn || !query.isAscending();
+        query = new ProductQuery(sortColumn, ascending, query.getFilter());
+        refresh();
+    }
+
+    public void setFilter(String filter) {
+        query = new ProductQuery(query.getSortColumn(), query.isAscending(), filter);
+        refresh();
+    }
+
+    // Re-counts and then drops every loaded page; visible rows are re-fetched as they repaint.
+    // Until the new count arrives the old rows stay on screen rather than flashing empty.
+    public void refresh() {
+        int current = ++generation;
+        pending.clear();
+        failed.clear();
+        controller.countProductsAsync(query).whenCompleteAsync((count, error) -> {
+            if (current != generation) {
+                return;
+            }
+            pages.clear();
+            pagesGeneration = current;
+            if (error != null) {
+                // The old rows may not match the new filter or order, so show none; the next
+                // refresh tries again
+                System.err.println("Could not count products: " + error.getMessage());
+                rowCount = 0;
+            } else {
+                rowCount = count;
+            }
+            fireTableDataChanged();
+        }, AsyncExecutor.EDT);
+    }
+
+    // Delta refresh: re-reads only the given products and patches the rows already loaded.
+    // Falls back to a full refresh when the change could move rows (stock sort, or unknown ids).
+    public void refreshRows(Set<Integer> productIds) {
+        if (query.getSortColumn() == ProductQuery.SortColumn.STOCK) {
+            refresh();
+            return;
+        }
+        int current = generation;
+        controller.getProductsAsync(productIds).thenAcceptAsync(fresh -> {
+            if (current != generation) {
+                return;
+            }
+            if (fresh.size() < productIds.size()) {
+                // Some ids are new or deleted, so the row count is no longer right
+                refresh();
+                return;
+            }
+            for (Map.Entry<Integer, List<Product>> entry : pages.entrySet()) {
+                List<Product> page = entry.getValue();
+                for (int i = 0; i < page.size(); i++) {
+                    Product updated = fresh.get(page.get(i).getId());
+                    if (updated != null) {
+                        page.set(i, updated);
+                        int row = entry.getKey() * PAGE_SIZE + i;
+                        fireTableRowsUpdated(row, row);
+                    }
+                }
+            }
+        }, AsyncExecutor.EDT);
+    }
+
+    public Product getProductAt(int row) {
+        List<Product> page = pages.get(row / PAGE_SIZE);
+        int index = row % PAGE_SIZE;
+        return page != null && index < page.size() ? page.get(index) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        String name = COLUMNS[column];
+        if (SORT_COLUMNS[column] == query.getSortColumn()) {
+            name += query.isAscending() ? " \u25B2" : " \u25BC";
+        }
+        return name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 0: return Integer.class;
+            case 2: return Double.class;
+            case 3: return Integer.class;
+            default: return String.class;
+        }
+    }
+
+    // Returns raw values; formatting happens in the renderer, i.e. only for painted cells
+    @Override
+    public Object getValueAt(int row, int column) {
+        Product product = getProductAt(row);
+        if (product == null) {
+            int pageIndex = row / PAGE_SIZE;
+            // A loaded page is short only until the refresh it triggered lands
+            if (!pages.containsKey(pageIndex) && !failed.contains(pageIndex)) {
+                requestPage(pageIndex);
+            }
+            return null;
+        }
+        switch (column) {
+            case 0: return product.getId();
+            case 1: return product.getDescription();
+            case 2: return product.getPrice();
+            default: return product.getStock();
+        }
+    }
+
+    private void requestPage(int pageIndex) {
+        if (!pending.add(pageIndex)) {
+            return;
+        }
+        int current = generation;
+        // Continue from the previous page's last row when we have it, so scrolling is a keyset seek
+        List<Product> previous = pagesGeneration == current ? pages.get(pageIndex - 1) : null;
+        Product after = previous != null && previous.size() == PAGE_SIZE ? previous.get(PAGE_SIZE - 1) : null;
+
+        controller.getProductPageAsync(query, after, pageIndex * PAGE_SIZE, PAGE_SIZE).whenCompleteAsync((page, error) -> {
+            if (current != generation) {
+                return;
+            }
+            pending.remove(pageIndex);
+            if (pagesGeneration != current) {
+                // Requested before a refresh's count arrived; it would be cleared with the old
+                // pages, and is requested again on the next repaint
+                return;
+            }
+            if (error instanceof RejectedExecutionException) {
+                // Dropped for newer reads while the user scrolled; asked for again if still visible
+                return;
+            }
+            if (error != null) {
+                System.err.println("Could not load products: " + error.getMessage());
+                failed.add(pageIndex);
+                return;
+            }
+            pages.put(pageIndex, page);
+            int first = pageIndex * PAGE_SIZE;
+            int expected = Math.min(rowCount - first, PAGE_SIZE);
+            if (page.size() < expected) {
+                // Products were deleted since the count. At the end of the list the rows are
+                // simply gone; further up everything after them has moved, so count again.
+                if (first + PAGE_SIZE >= rowCount) {
+                    int oldCount = rowCount;
+                    rowCount = first + page.size();
+                    fireTableRowsDeleted(rowCount, oldCount - 1);
+                } else {
+                    refresh();
+                    return;
+                }
+            }
+            int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, AsyncExecutor.EDT);
+    }
+}
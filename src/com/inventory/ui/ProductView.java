@@ -1,10 +1,7 @@
 package com.inventory.ui;
 
-import com.inventory.model.Product;
-import java.util.List;
-
 public interface ProductView {
-    void displayProducts(List<Product> products);
+    void refreshProductTable();
     void clearProductForm();
     void clearStockUpdateForm();
     void showErrorMessage(String message, String title);
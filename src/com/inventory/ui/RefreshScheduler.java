@@ -0,0 +1,97 @@
+package com.inventory.ui;
+
+import com.inventory.controller.AsyncExecutor;
+
+import javax.swing.*;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Coalesces refresh requests. All requests for a view that arrive within the window are
+// merged into one refresh: either the union of the changed product ids, or a full reload
+// if any request in the window did not know what changed.
+public class RefreshScheduler {
+    public enum Target {
+        PRODUCT_TABLE,
+        ORDER_PRODUCTS
+    }
+
+    private final Timer timer;
+    private final Map<Target, Consumer<Set<Integer>>> handlers = new EnumMap<>(Target.class);
+    // Pending work per view: a set of changed ids, or null for a full reload
+    private final Map<Target, Set<Integer>> pending = new EnumMap<>(Target.class);
+    private long requests;
+    private long refreshes;
+
+    public RefreshScheduler(int windowMillis) {
+        // Not restarted by later requests, so a steady stream of changes still refreshes once per window
+        timer = new Timer(Math.max(1, windowMillis), e -> flush());
+        timer.setRepeats(false);
+    }
+
+    // The handler receives the changed ids, or null when the whole view must be reloaded
+    public void register(Target target, Consumer<Set<Integer>> handler) {
+        handlers.put(target, handler);
+    }
+
+    public void requestFull(Target target) {
+        synchronized (pending) {
+            pending.put(target, null);
+            requests++;
+        }
+        schedule();
+    }
+
+    public void requestDelta(Target target, Collection<Integer> changedIds) {
+        synchronized (pending) {
+            requests++;
+            if (!pending.containsKey(target)) {
+                pending.put(target, new HashSet<>(changedIds));
+            } else {
+                Set<Integer> ids = pending.get(target);
+                if (ids != null) {
+                    ids.addAll(changedIds);
+                }
+            }
+        }
+        schedule();
+    }
+
+    public long getRequestCount() {
+        synchronized (pending) {
+            return requests;
+        }
+    }
+
+    public long getRefreshCount() {
+        synchronized (pending) {
+            return refreshes;
+        }
+    }
+
+    private void schedule() {
+        AsyncExecutor.EDT.execute(() -> {
+            if (!timer.isRunning()) {
+                timer.start();
+            }
+        });
+    }
+
+    private void flush() {
+        Map<Target, Set<Integer>> work;
+        synchronized (pending) {
+            work = new EnumMap<>(pending);
+            pending.clear();
+            refreshes += work.size();
+        }
+        for (Map.Entry<Target, Set<Integer>> entry : work.entrySet()) {
+            Consumer<Set<Integer>> handler = handlers.get(entry.getKey());
+            if (handler != null) {
+                handler.accept(entry.getValue());
+            }
+        }
+    }
+}
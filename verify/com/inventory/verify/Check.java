@@ -0,0 +1,42 @@
+package com.inventory.verify;
+
+// Counts and prints the outcome of each expectation; a failed one does not stop the rest
+final class Check {
+    private final String name;
+    private int passed;
+    private int failed;
+
+    Check(String name) {
+        this.name = name;
+    }
+
+    void that(boolean condition, String description) {
+        if (condition) {
+            passed++;
+        } else {
+            failed++;
+            System.out.println("  FAIL " + name + ": " + description);
+        }
+    }
+
+    void equal(Object expected, Object actual, String description) {
+        if (expected == null ? actual == null : expected.equals(actual)) {
+            passed++;
+        } else {
+            failed++;
+            System.out.println("  FAIL " + name + ": " + description);
+            System.out.println("    expected: " + expected);
+            System.out.println("    actual:   " + actual);
+        }
+    }
+
+    boolean finish() {
+        System.out.println((failed == 0 ? "PASS " : "FAIL ") + name + " (" + passed + " passed, " + failed + " failed)");
+        return failed == 0;
+    }
+
+    // For the main() of a single check
+    static void exit(boolean ok) {
+        System.exit(ok ? 0 : 1);
+    }
+}
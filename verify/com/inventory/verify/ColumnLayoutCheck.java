@@ -0,0 +1,182 @@
+package com.inventory.verify;
+
+import com.inventory.format.ColumnLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// ColumnLayout must produce exactly what String.format does for the layouts the reports and
+// UI use. Random rows, including NaN, infinities, -0.0, Long.MIN_VALUE and half-way decimals,
+// are formatted both ways in several locales. With --bench it also times both on report rows.
+public class ColumnLayoutCheck {
+    private static final String[] LAYOUTS = {
+        "%,.2f",
+        "%.1f%%",
+        "%-10s $%,12.2f %8d orders\n",
+        "%-30s %-12d $%-11.2f %.1f%%\n",
+        "%-30s %-12s %-12s %s\n",
+        "%-5d %-30s $%-9.2f %-10d $%-14.2f %s\n",
+        "%-5s %-30s %-10s %-10s %-15s %s\n",
+        "Product #%d: %s (Price: $%.2f, Stock: %d)",
+        "%d x %s (Stock remaining: %d)",
+        "$%.2f",
+        "%08.3f|%,015.2f|%-8.0f|%f|%,d|%06d|%.3s|%-6.2s|%n"
+    };
+    private static final Locale[] LOCALES = {
+        Locale.US, Locale.GERMANY, Locale.FRANCE, new Locale("de", "CH"), new Locale("hi", "IN"),
+        Locale.forLanguageTag("en-IN"), Locale.forLanguageTag("ar-EG"), Locale.forLanguageTag("th-TH-u-nu-thai"),
+        Locale.ROOT
+    };
+    private static final String[] STRINGS = {
+        "Widget", null, "", "A very long product description exceeding thirty chars", "Caf\u00e9 \u2615", "x,y\"z"
+    };
+    private static final int ROWS_PER_LAYOUT = 5_000;
+
+    public static void main(String[] args) {
+        boolean ok = run();
+        if (args.length > 0 && args[0].equals("--bench")) {
+            bench();
+        }
+        Check.exit(ok);
+    }
+
+    static boolean run() {
+        Check check = new Check("ColumnLayout matches String.format");
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        Random random = new Random(7);
+        try {
+            for (Locale locale : LOCALES) {
+                Locale.setDefault(Locale.Category.FORMAT, locale);
+                for (String pattern : LAYOUTS) {
+                    compare(check, locale, pattern, random);
+                }
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+        return check.finish();
+    }
+
+    private static void compare(Check check, Locale locale, String pattern, Random random) {
+        ColumnLayout.Line line = ColumnLayout.compile(pattern).newLine();
+        List<Character> conversions = conversions(pattern);
+        String firstMismatch = null;
+        int mismatches = 0;
+        for (int row = 0; row < ROWS_PER_LAYOUT; row++) {
+            Object[] values = new Object[conversions.size()];
+            for (int i = 0; i < values.length; i++) {
+                switch (conversions.get(i)) {
+                    case 'd':
+                        long number = randomLong(random);
+                        values[i] = number;
+                        line.add(number);
+                        break;
+                    case 'f':
+                        double amount = randomDouble(random);
+                        values[i] = amount;
+                        line.add(amount);
+                        break;
+                    default:
+                        String text = STRINGS[random.nextInt(STRINGS.length)];
+                        values[i] = text;
+                        line.add(text);
+                }
+            }
+            String expected = String.format(pattern, values);
+            String actual = line.format();
+            if (!expected.equals(actual)) {
+                mismatches++;
+                if (firstMismatch == null) {
+                    firstMismatch = "'" + expected + "' but got '" + actual + "'";
+                }
+            }
+        }
+        check.that(mismatches == 0, mismatches + " of " + ROWS_PER_LAYOUT + " rows differ for [" + pattern.trim()
+            + "] in " + locale.toLanguageTag() + ", e.g. " + firstMismatch);
+    }
+
+    // The conversion letter of each argument, in order
+    private static List<Character> conversions(String pattern) {
+        List<Character> conversions = new ArrayList<>();
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) != '%') {
+                continue;
+            }
+            int j = i + 1;
+            while ("dsfn%".indexOf(pattern.charAt(j)) < 0) {
+                j++;
+            }
+            char conversion = pattern.charAt(j);
+            if (conversion != '%' && conversion != 'n') {
+                conversions.add(conversion);
+            }
+            i = j;
+        }
+        return conversions;
+    }
+
+    private static long randomLong(Random random) {
+        switch (random.nextInt(5)) {
+            case 0: return random.nextInt(100);
+            case 1: return random.nextLong();
+            case 2: return Long.MIN_VALUE;
+            case 3: return -random.nextInt(100_000);
+            default: return random.nextInt();
+        }
+    }
+
+    private static double randomDouble(Random random) {
+        switch (random.nextInt(8)) {
+            case 0: return random.nextInt(1_000_000) / 100.0;
+            case 1: return random.nextDouble() * 1e12;
+            case 2: return Double.NaN;
+            case 3: return Double.NEGATIVE_INFINITY;
+            case 4: return -0.0;
+            case 5: return Double.longBitsToDouble(random.nextLong());
+            // Exactly half-way at the third decimal, where rounding differences show
+            case 6: return (random.nextInt(100_000) + 0.5) / 1000;
+            default: return -random.nextDouble() * 1000;
+        }
+    }
+
+    // Rough timings, not a JMH benchmark: the first rounds include warm-up
+    private static void bench() {
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        Locale.setDefault(Locale.Category.FORMAT, Locale.US);
+        try {
+            String row = "%-5d %-30s $%-9.2f %-10d $%-14.2f %s\n";
+            String trend = "%-10s $%,12.2f %8d orders\n";
+            ColumnLayout rowLayout = ColumnLayout.compile(row);
+            ColumnLayout trendLayout = ColumnLayout.compile(trend);
+            int rows = 300_000;
+            for (int round = 1; round <= 5; round++) {
+                StringBuilder formatted = new StringBuilder();
+                StringBuilder laidOut = new StringBuilder();
+                long start = System.nanoTime();
+                for (int i = 0; i < rows; i++) {
+                    double price = (i % 10_000) / 100.0;
+                    formatted.append(String.format(row, i, "Product number " + (i % 100), price, i % 97,
+                        price * (i % 97), "OK"));
+                    formatted.append(String.format(trend, "2024-" + (i % 12 + 1), price * 1000, i % 5000));
+                }
+                long middle = System.nanoTime();
+                ColumnLayout.Line rowLine = rowLayout.newLine();
+                ColumnLayout.Line trendLine = trendLayout.newLine();
+                for (int i = 0; i < rows; i++) {
+                    double price = (i % 10_000) / 100.0;
+                    rowLine.add(i).add("Product number " + (i % 100)).add(price).add(i % 97)
+                        .add(price * (i % 97)).add("OK").appendTo(laidOut);
+                    trendLine.add("2024-" + (i % 12 + 1)).add(price * 1000).add(i % 5000).appendTo(laidOut);
+                }
+                long end = System.nanoTime();
+                System.out.println("round " + round + ": " + rows + " row and trend lines, String.format "
+                    + (middle - start) / 1_000_000 + " ms, ColumnLayout " + (end - middle) / 1_000_000
+                    + " ms, identical " + formatted.toString().equals(laidOut.toString()));
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.inventory.verify;
+
+import com.inventory.service.EventBus;
+import com.inventory.service.event.InventoryEvent;
+import com.inventory.service.event.OrderCreated;
+import com.inventory.service.event.StockChanged;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// COALESCE backpressure with a subscriber held up on its first event: a stock change may fold
+// into the newest pending event, but must never overtake an event queued before it.
+public class EventBusCheck {
+    private static final int GATE_PRODUCT = 99;
+
+    public static void main(String[] args) throws Exception {
+        Check.exit(run());
+    }
+
+    static boolean run() throws Exception {
+        Check check = new Check("event bus");
+        mergesIntoNewest(check);
+        keepsOrder(check);
+        return check.finish();
+    }
+
+    // Queue: order #7, stock of 1. Another change to 1 merges into the tail.
+    private static void mergesIntoNewest(Check check) throws Exception {
+        Recorder recorder = new Recorder(2);
+        recorder.bus.publish(new OrderCreated(7, Map.of(1, 2)));
+        recorder.bus.publish(new StockChanged(1, -2, 8));
+        recorder.bus.publish(new StockChanged(1, -3, 5));
+        List<InventoryEvent> events = recorder.release(2);
+
+        check.equal(1L, recorder.bus.getCoalescedCount(), "a change behind a change to the same product is merged");
+        check.equal(0L, recorder.bus.getDroppedCount(), "nothing is dropped when the change can be merged");
+        check.that(events.size() == 2 && events.get(0) instanceof OrderCreated,
+            "the order is delivered before the merged stock change: " + events);
+        if (events.size() == 2 && events.get(1) instanceof StockChanged) {
+            StockChanged merged = (StockChanged) events.get(1);
+            check.equal(-5, merged.getDelta(), "merged delta");
+            check.equal(5, merged.getNewLevel(), "merged level");
+        }
+        recorder.bus.shutdown();
+    }
+
+    // Queue: stock of 1, order #7. A change to 1 must not merge past the order into the head.
+    private static void keepsOrder(Check check) throws Exception {
+        Recorder recorder = new Recorder(2);
+        recorder.bus.publish(new StockChanged(1, -2, 8));
+        recorder.bus.publish(new OrderCreated(7, Map.of(1, 3)));
+        recorder.bus.publish(new StockChanged(1, -3, 5));
+        List<InventoryEvent> events = recorder.release(2);
+
+        check.equal(0L, recorder.bus.getCoalescedCount(), "no merge into an event queued before another one");
+        check.equal(1L, recorder.bus.getDroppedCount(), "the oldest pending event makes room");
+        check.that(events.size() == 2 && events.get(0) instanceof OrderCreated
+                && events.get(1) instanceof StockChanged && ((StockChanged) events.get(1)).getNewLevel() == 5,
+            "the order is delivered before the later stock change: " + events);
+        recorder.bus.shutdown();
+    }
+
+    // Subscribes to everything and holds up delivery on a first gate event until released, so
+    // the events published meanwhile pile up in the subscriber's queue
+    private static final class Recorder {
+        private final EventBus bus;
+        private final List<InventoryEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        private Recorder(int queueCapacity) throws InterruptedException {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            bus = new EventBus(executor, queueCapacity, EventBus.Backpressure.COALESCE, 0);
+            bus.subscribe(InventoryEvent.class, event -> {
+                events.add(event);
+                if (event instanceof StockChanged && ((StockChanged) event).getProductId() == GATE_PRODUCT) {
+                    blocked.countDown();
+                    try {
+                        gate.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            bus.publish(new StockChanged(GATE_PRODUCT, 0, 0));
+            blocked.await(5, TimeUnit.SECONDS);
+        }
+
+        // Lets delivery continue and waits for the given number of events after the gate
+        private List<InventoryEvent> release(int expected) throws InterruptedException {
+            gate.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (events.size() < expected + 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            return events.subList(1, events.size());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.inventory.verify;
+
+import com.inventory.model.OrderData;
+import com.inventory.model.OrderResult;
+import com.inventory.repository.OrderRepository;
+import com.inventory.service.OrderIntakePipeline;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The intake pipeline against a stub repository whose every commit takes a fixed time:
+// concurrent orders must share commits, each caller must get its own result, and close()
+// must write what is queued and fail what it cannot.
+public class OrderIntakeCheck {
+    public static void main(String[] args) throws Exception {
+        Check.exit(run());
+    }
+
+    static boolean run() throws Exception {
+        Check check = new Check("order intake");
+        grouping(check);
+        closing(check);
+        closingWhileSubmitting(check);
+        return check.finish();
+    }
+
+    private static void grouping(Check check) throws Exception {
+        OrderIntakePipeline intake = new OrderIntakePipeline(new SlowRepository(5), 64, 2, 10_000, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        try {
+            long start = System.nanoTime();
+            List<Future<OrderResult>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                results.add(callers.submit(() -> intake.submit(order()).join()));
+            }
+            Set<Integer> ids = new HashSet<>();
+            for (Future<OrderResult> result : results) {
+                ids.add(result.get().getOrderId());
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("  2000 orders from 32 threads: " + intake.getBatchCount() + " commits, "
+                + millis + " ms (" + 2000 * 5 + " ms one by one)");
+            check.equal(2000, ids.size(), "every caller gets its own order id");
+            check.that(intake.getBatchCount() < 2000 / 4, "orders share commits");
+        } finally {
+            callers.shutdownNow();
+            intake.close(1000);
+        }
+    }
+
+    private static void closing(Check check) {
+        OrderIntakePipeline intake = new OrderIntakePipeline(new SlowRepository(50), 4, 1000, 1000, 2);
+        List<CompletableFuture<OrderResult>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            results.add(intake.submit(order()));
+        }
+        intake.close(5000);
+        check.that(results.stream().allMatch(result -> result.isDone() && result.join().isSuccess()),
+            "close() writes everything already queued");
+        check.that(!intake.submit(order()).join().isSuccess(), "orders after close() are refused");
+
+        OrderIntakePipeline hurried = new OrderIntakePipeline(new SlowRepository(50), 4, 1000, 1000, 1);
+        List<CompletableFuture<OrderResult>> queued = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            queued.add(hurried.submit(order()));
+        }
+        hurried.close(100);
+        // A batch that was being committed at the timeout still completes, just after close()
+        try {
+            CompletableFuture.allOf(queued.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // Reported below
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        check.that(queued.stream().allMatch(CompletableFuture::isDone), "no order is left waiting after close()");
+        check.that(queued.stream().anyMatch(result -> !result.join().isSuccess()),
+            "orders not written in time are failed");
+    }
+
+    private static void closingWhileSubmitting(Check check) throws Exception {
+        List<CompletableFuture<OrderResult>> results = new CopyOnWriteArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            OrderIntakePipeline intake = new OrderIntakePipeline(new SlowRepository(1), 16, 1, 10_000, 1);
+            ExecutorService callers = Executors.newFixedThreadPool(8);
+            for (int i = 0; i < 8; i++) {
+                callers.execute(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        results.add(intake.submit(order()));
+                    }
+                });
+            }
+            intake.close(5);
+            callers.shutdown();
+            callers.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        try {
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // Reported below
+        }
+        check.that(results.stream().allMatch(CompletableFuture::isDone),
+            "orders submitted while close() runs are all answered");
+    }
+
+    private static OrderData order() {
+        OrderData order = new OrderData();
+        order.addItem(1, 1);
+        return order;
+    }
+
+    // Every commit takes the same time, however many orders it holds
+    private static final class SlowRepository extends OrderRepository {
+        private final long commitMillis;
+        private final AtomicInteger nextId = new AtomicInteger();
+
+        SlowRepository(long commitMillis) {
+            super(null);
+            this.commitMillis = commitMillis;
+        }
+
+        @Override
+        public List<OrderResult> placeOrders(List<OrderData> orders) {
+            try {
+                Thread.sleep(commitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<OrderResult> results = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                results.add(OrderResult.success(nextId.incrementAndGet()));
+            }
+            return results;
+        }
+    }
+}
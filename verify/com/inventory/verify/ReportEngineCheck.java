@@ -0,0 +1,67 @@
+package com.inventory.verify;
+
+import com.inventory.model.Product;
+import com.inventory.report.InventoryReport;
+import com.inventory.report.ReportEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// An inventory report built in parallel chunks must match the sequential build byte for
+// byte, whatever the thread count, as long as the chunk size is the same.
+public class ReportEngineCheck {
+    public static void main(String[] args) {
+        Check.exit(run());
+    }
+
+    static boolean run() {
+        Check check = new Check("parallel inventory report matches sequential");
+        ReportEngine sequential = ReportEngine.sequential();
+        for (int size : new int[] {0, 1, 4095, 4097, 30_000, 300_000}) {
+            List<Product> products = products(size);
+            String expected = withoutTimestamp(new InventoryReport(sequential).generate(products));
+            for (int threads : new int[] {2, 4, 8}) {
+                ReportEngine engine = new ReportEngine(threads, 4096, 20_000);
+                try {
+                    String actual = withoutTimestamp(new InventoryReport(engine).generate(products));
+                    check.that(expected.equals(actual), size + " products on " + threads + " threads");
+                } finally {
+                    engine.shutdown();
+                }
+            }
+        }
+
+        ReportEngine engine = new ReportEngine(4, 10, 0);
+        try {
+            List<Integer> numbers = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                numbers.add(i);
+            }
+            List<Integer> firsts = engine.mapChunks(numbers, chunk -> chunk.get(0));
+            check.equal(100, firsts.size(), "one result per chunk of 10");
+            boolean inOrder = true;
+            for (int i = 0; i < firsts.size(); i++) {
+                inOrder &= firsts.get(i) == i * 10;
+            }
+            check.that(inOrder, "chunk results come back in input order");
+        } finally {
+            engine.shutdown();
+        }
+        return check.finish();
+    }
+
+    static List<Product> products(int count) {
+        Random random = new Random(3);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            products.add(new Product(i, "Item " + i, random.nextInt(100_000) / 100.0, random.nextInt(50)));
+        }
+        return products;
+    }
+
+    // The header line carries the generation time
+    static String withoutTimestamp(String report) {
+        return report.replaceFirst("Generated: [^\n]*\n", "");
+    }
+}
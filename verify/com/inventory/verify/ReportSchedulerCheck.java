@@ -0,0 +1,175 @@
+package com.inventory.verify;
+
+import com.inventory.model.Product;
+import com.inventory.report.CronSchedule;
+import com.inventory.report.ReportFactory;
+import com.inventory.report.ReportScheduler;
+import com.inventory.repository.ProductRepository;
+import com.inventory.repository.SalesQuery;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// CronSchedule.next() against a minute-by-minute scan, and the scheduler's stored copies:
+// served, replaced, dropped on invalidation and never stored once stopped.
+public class ReportSchedulerCheck {
+    private static final String[] EXPRESSIONS = {
+        "30 5 * * 1-5", "0 * * * *", "*/15 9-17 * * *", "0 0 1 * *", "0 12 13 * 5", "5/20 3 * 2,8 0",
+        "0 0 29 2 *", "59 23 31 12 7", "0 2 * * *"
+    };
+
+    public static void main(String[] args) throws Exception {
+        Check.exit(run());
+    }
+
+    static boolean run() throws Exception {
+        Check check = new Check("report scheduler");
+        cron(check);
+        Path directory = Files.createTempDirectory("scheduler-check");
+        try {
+            copies(check, directory);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.deleteIfExists(directory);
+        }
+        return check.finish();
+    }
+
+    private static void cron(Check check) {
+        // Includes both daylight saving changes
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        Random random = new Random(5);
+        for (String expression : EXPRESSIONS) {
+            CronSchedule schedule = CronSchedule.parse(expression);
+            String[] fields = expression.split(" ");
+            for (int i = 0; i < 40; i++) {
+                ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, zone)
+                    .plusMinutes(random.nextInt(2 * 365 * 24 * 60)).plusSeconds(random.nextInt(60));
+                LocalDateTime scan = start.toLocalDateTime().withSecond(0).withNano(0).plusMinutes(1);
+                while (!matches(fields, scan)) {
+                    scan = scan.plusMinutes(1);
+                }
+                check.equal(scan.atZone(zone), schedule.next(start), expression + " after " + start);
+            }
+        }
+        for (String invalid : new String[] {"0 6 * *", "61 * * * *", "0 0 30 2 *"}) {
+            try {
+                CronSchedule.parse(invalid).next(ZonedDateTime.now());
+                check.that(false, "'" + invalid + "' is rejected");
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                check.that(true, "'" + invalid + "' is rejected");
+            }
+        }
+    }
+
+    // Standard cron: when both day fields are restricted, either may match
+    private static boolean matches(String[] fields, LocalDateTime time) {
+        int dayOfWeek = time.getDayOfWeek().getValue() % 7;
+        boolean dayOfMonthMatches = matches(fields[2], time.getDayOfMonth(), 1, 31);
+        boolean dayOfWeekMatches = matches(fields[4], dayOfWeek, 0, 7) || (dayOfWeek == 0 && matches(fields[4], 7, 0, 7));
+        boolean dayMatches = fields[2].startsWith("*") || fields[4].startsWith("*")
+            ? dayOfMonthMatches && dayOfWeekMatches : dayOfMonthMatches || dayOfWeekMatches;
+        return dayMatches && matches(fields[0], time.getMinute(), 0, 59) && matches(fields[1], time.getHour(), 0, 23)
+            && matches(fields[3], time.getMonthValue(), 1, 12);
+    }
+
+    private static boolean matches(String field, int value, int min, int max) {
+        for (String part : field.split(",")) {
+            String[] stepped = part.split("/");
+            int step = stepped.length > 1 ? Integer.parseInt(stepped[1]) : 1;
+            String[] range = stepped[0].split("-");
+            int low = stepped[0].equals("*") ? min : Integer.parseInt(range[0]);
+            int high = stepped[0].equals("*") ? max
+                : range.length > 1 ? Integer.parseInt(range[1]) : stepped.length > 1 ? max : low;
+            for (int candidate = low; candidate <= high; candidate += step) {
+                if (candidate == value) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void copies(Check check, Path directory) throws Exception {
+        List<Product> products = ReportEngineCheck.products(1000);
+        ProductRepository repository = new ProductRepository(null, null, null) {
+            @Override
+            public List<Product> findAll() {
+                // Long enough to invalidate or stop a run while it is in flight
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return products;
+            }
+        };
+        ReportScheduler scheduler = new ReportScheduler(repository, new ReportFactory(null), directory,
+            Collections.singletonList(new ReportScheduler.ScheduledReport("inventory", "inventory",
+                CronSchedule.parse("0 3 * * *"), null, null, 0, null, null)), true);
+
+        scheduler.start();
+        check.that(scheduler.retainLatest("inventory", null) == null, "nothing served before the first run");
+        Thread.sleep(600);
+        ReportScheduler.Precomputed first = scheduler.retainLatest("inventory", SalesQuery.allTime());
+        check.that(first != null, "the first run is served, for any query");
+        if (first == null) {
+            scheduler.stop();
+            return;
+        }
+        Path firstFile = first.getReport().getFile();
+        first.release();
+        check.that(scheduler.retainLatest("sales", null) == null, "other report types are not answered");
+
+        check.that(scheduler.regenerate("inventory", null), "regenerate finds the scheduled report");
+        ReportScheduler.Precomputed second = scheduler.retainLatest("inventory", null);
+        check.that(second != null && !second.getReport().getFile().equals(firstFile), "regenerate replaces the copy");
+        check.that(!Files.exists(firstFile), "the replaced copy is deleted");
+        check.equal(1L, count(directory), "one spool file per scheduled report");
+        if (second != null) {
+            second.release();
+        }
+
+        scheduler.invalidate("INVENTORY");
+        check.that(scheduler.retainLatest("inventory", null) == null, "invalidate drops the copy");
+        check.equal(0L, count(directory), "the dropped copy is deleted");
+
+        Thread regeneration = new Thread(() -> {
+            try {
+                scheduler.regenerate("inventory", null);
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        regeneration.start();
+        Thread.sleep(100);
+        scheduler.invalidate("inventory");
+        regeneration.join();
+        check.that(scheduler.retainLatest("inventory", null) == null, "a run overlapping an invalidation is not stored");
+        check.equal(0L, count(directory), "its copy is deleted");
+
+        scheduler.stop();
+        scheduler.start();
+        Thread.sleep(100);
+        scheduler.stop();
+        Thread.sleep(500);
+        check.that(scheduler.retainLatest("inventory", null) == null, "a run in flight at stop() is not stored");
+        check.equal(0L, count(directory), "nothing is left in the spool directory after stop()");
+    }
+
+    private static long count(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
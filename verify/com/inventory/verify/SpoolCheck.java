@@ -0,0 +1,134 @@
+package com.inventory.verify;
+
+import com.inventory.controller.AsyncExecutor;
+import com.inventory.model.Product;
+import com.inventory.report.InventoryReport;
+import com.inventory.report.ReportCache;
+import com.inventory.report.ReportEngine;
+import com.inventory.report.ReportPages;
+import com.inventory.report.SpooledReport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Spool files: paged and copied output must equal the report, a file lives exactly as long
+// as its last reference, and nothing is left behind by expired cache entries, cancelled page
+// requests or a process that died.
+public class SpoolCheck {
+    public static void main(String[] args) throws Exception {
+        Check.exit(run());
+    }
+
+    static boolean run() throws Exception {
+        Check check = new Check("spooled reports");
+        Path root = Files.createTempDirectory("spool-check");
+        try {
+            contents(check, SpooledReport.processDirectory(root));
+            sweep(check, root);
+            cacheEviction(check);
+            abandonedResult(check);
+        } finally {
+            SpooledReport.deleteAll(SpooledReport.processDirectory(root));
+            Files.deleteIfExists(root);
+        }
+        return check.finish();
+    }
+
+    private static void contents(Check check, Path directory) throws IOException {
+        List<Product> products = ReportEngineCheck.products(100_000);
+        ReportEngine engine = new ReportEngine(4, 4096, 20_000);
+        try {
+            InventoryReport report = new InventoryReport(engine);
+            SpooledReport spooled = SpooledReport.write(report, products, directory);
+            String whole = spooled.readAll();
+            check.equal(ReportEngineCheck.withoutTimestamp(report.generate(products)),
+                ReportEngineCheck.withoutTimestamp(whole), "spool file matches generate()");
+
+            ReportPages pages = spooled.openPages(1000);
+            StringBuilder paged = new StringBuilder();
+            for (int i = 0; i < pages.getPageCount(); i++) {
+                paged.append(pages.readPage(i));
+            }
+            check.that(whole.equals(paged.toString()), "pages concatenate to the whole file");
+
+            Path copy = directory.resolve("copy.txt");
+            check.equal(spooled.getSize(), spooled.copyTo(copy), "copyTo writes every byte");
+            check.equal(-1L, Files.mismatch(copy, spooled.getFile()), "copy is identical");
+            Files.delete(copy);
+
+            spooled.release();
+            check.that(Files.exists(spooled.getFile()), "file kept while pages are open");
+            check.that(pages.readPage(0).startsWith("=== INVENTORY"), "pages still readable after owner release");
+            pages.close();
+            check.that(!Files.exists(spooled.getFile()), "file deleted with the last reference");
+            check.that(!spooled.retain(), "no reference can be taken after deletion");
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private static void sweep(Check check, Path root) throws IOException {
+        // No process has pid 2^22 + 1 on Linux or macOS by default
+        Path dead = Files.createDirectories(root.resolve("pid-4194305"));
+        Files.write(dead.resolve("report-1.txt"), new byte[10]);
+        Path own = Files.createDirectories(SpooledReport.processDirectory(root));
+        Files.write(own.resolve("report-2.txt"), new byte[10]);
+        Path unrelated = Files.createDirectories(root.resolve("notes"));
+
+        check.equal(2, SpooledReport.sweep(root), "sweep deletes files of dead and earlier runs");
+        check.that(!Files.exists(dead), "dead process directory removed");
+        check.that(Files.exists(unrelated), "directories not named by pid are left alone");
+        Files.delete(unrelated);
+    }
+
+    private static void cacheEviction(Check check) throws Exception {
+        AtomicInteger discarded = new AtomicInteger();
+        ReportCache<String> cache = new ReportCache<>(50, report -> discarded.incrementAndGet());
+        cache.get("inventory", null, () -> "inventory");
+        cache.get("sales", null, () -> "sales");
+        check.equal(0, cache.evictExpired(), "nothing evicted before the TTL");
+        Thread.sleep(100);
+        check.equal(2, cache.evictExpired(), "expired reports evicted without a request");
+        check.equal(2, discarded.get(), "evicted reports are released");
+
+        cache.get("inventory", null, () -> "inventory");
+        cache.invalidate();
+        check.equal(3, discarded.get(), "invalidation releases cached reports");
+    }
+
+    private static void abandonedResult(Check check) throws Exception {
+        AsyncExecutor async = new AsyncExecutor(Executors.newSingleThreadExecutor());
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch cancelled = new CountDownLatch(1);
+            AtomicInteger abandoned = new AtomicInteger();
+            CompletableFuture<String> future = async.submit(() -> {
+                started.countDown();
+                // Ignores the interrupt, like a task past its last cancellation check
+                while (cancelled.getCount() > 0) {
+                    Thread.interrupted();
+                    Thread.onSpinWait();
+                }
+                return "pages";
+            }, result -> abandoned.incrementAndGet());
+            started.await();
+            future.cancel(true);
+            cancelled.countDown();
+            async.submit(() -> null).get(5, TimeUnit.SECONDS);
+            check.equal(1, abandoned.get(), "a result finished after cancel goes to onAbandoned");
+
+            CompletableFuture<String> delivered = async.submit(() -> "pages", result -> abandoned.incrementAndGet());
+            check.equal("pages", delivered.get(5, TimeUnit.SECONDS), "a result that is received is not abandoned");
+            check.equal(1, abandoned.get(), "onAbandoned not called for a delivered result");
+        } finally {
+            async.shutdown();
+        }
+    }
+}
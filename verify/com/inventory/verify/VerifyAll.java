@@ -0,0 +1,18 @@
+package com.inventory.verify;
+
+// Standalone checks for behaviour that can be verified without a database. There is no
+// test framework in this tree, so each check is a plain main() that exits non-zero on failure:
+//   javac -d out $(find src verify -name '*.java')
+//   java -cp out com.inventory.verify.VerifyAll
+// ColumnLayoutCheck --bench also times ColumnLayout against String.format.
+public class VerifyAll {
+    public static void main(String[] args) throws Exception {
+        boolean ok = ColumnLayoutCheck.run();
+        ok &= ReportEngineCheck.run();
+        ok &= SpoolCheck.run();
+        ok &= OrderIntakeCheck.run();
+        ok &= ReportSchedulerCheck.run();
+        ok &= EventBusCheck.run();
+        Check.exit(ok);
+    }
+}